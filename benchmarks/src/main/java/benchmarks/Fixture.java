@@ -0,0 +1,31 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Perft;
+
+/**
+ * Positions the benchmarks run against, taken from the perft reference suite
+ */
+public enum Fixture {
+    OPENING("start"),
+    MIDDLEGAME("middlegame"),
+    ENDGAME("endgame");
+
+    private final String perftName;
+
+    Fixture(String perftName) {
+        this.perftName = perftName;
+    }
+
+    /**
+     * @return a fresh game in this position
+     */
+    public ChessGame createGame() {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            if (position.getName().equals(perftName)) {
+                return position.createGame();
+            }
+        }
+        throw new IllegalStateException("No perft position named " + perftName);
+    }
+}
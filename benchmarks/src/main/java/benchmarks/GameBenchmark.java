@@ -0,0 +1,173 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.GameSnapshot;
+import chess.InvalidMoveException;
+import chess.PackedMove;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ChessGame} rule checks for the team to move in each fixture
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Fixture fixture;
+
+    private ChessGame game;
+    private ChessGame.TeamColor team;
+    private ChessPosition[] ownPieces;
+    private ChessMove[] moves;
+    private GameSnapshot snapshot;
+    private final int[] buffer = new int[PackedMove.MAX_MOVES];
+    private int nextMove;
+
+    @Setup
+    public void setUp() {
+        game = fixture.createGame();
+        team = game.getTeamTurn();
+        List<ChessPosition> found = new ArrayList<>();
+        List<ChessMove> validMoves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == team) {
+                    found.add(position);
+                    validMoves.addAll(game.validMoves(position));
+                }
+            }
+        }
+        ownPieces = found.toArray(new ChessPosition[0]);
+        moves = validMoves.toArray(new ChessMove[0]);
+        snapshot = game.snapshot();
+    }
+
+    /**
+     * A copy of the fixture whose check, mate and move cache is still empty;
+     * {@link #setUp} has already filled the one of {@code game}. It is made
+     * again before every call, so only the benchmarks that take it pay for
+     * the per-call fixture.
+     */
+    @State(Scope.Thread)
+    public static class FreshGame {
+
+        private ChessGame game;
+
+        @Setup(Level.Invocation)
+        public void copy(GameBenchmark benchmark) {
+            game = new ChessGame(benchmark.game);
+        }
+    }
+
+    /**
+     * Valid moves of every piece of the team to move, through the collection
+     * API, starting from an empty cache
+     */
+    @Benchmark
+    public void validMoves(FreshGame fresh, Blackhole blackhole) {
+        for (ChessPosition position : ownPieces) {
+            blackhole.consume(fresh.game.validMoves(position));
+        }
+    }
+
+    /**
+     * Like {@link #validMoves}, answered from the game's move cache
+     */
+    @Benchmark
+    public void validMovesCached(Blackhole blackhole) {
+        for (ChessPosition position : ownPieces) {
+            blackhole.consume(game.validMoves(position));
+        }
+    }
+
+    /**
+     * Valid moves of the team to move, through the packed buffer API, which
+     * always runs the generator
+     */
+    @Benchmark
+    public int validMovesPacked() {
+        return game.validMoves(buffer);
+    }
+
+    /**
+     * Copying the game on its own, to subtract from {@link #makeMove}
+     */
+    @Benchmark
+    public ChessGame copyGame() {
+        return new ChessGame(game);
+    }
+
+    /**
+     * Packing the game into a snapshot, as done for every move of a replay
+     */
+    @Benchmark
+    public GameSnapshot takeSnapshot() {
+        return game.snapshot();
+    }
+
+    @Benchmark
+    public GameSnapshot copySnapshot() {
+        return snapshot.copy();
+    }
+
+    @Benchmark
+    public ChessGame restoreSnapshot() {
+        return snapshot.toGame();
+    }
+
+    /**
+     * Copies the game and plays one valid move, cycling through all of them
+     */
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        ChessGame copy = new ChessGame(game);
+        copy.makeMove(moves[nextMove]);
+        nextMove = (nextMove + 1) % moves.length;
+        return copy;
+    }
+
+    @Benchmark
+    public boolean isInCheck(FreshGame fresh) {
+        return fresh.game.isInCheck(team);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate(FreshGame fresh) {
+        return fresh.game.isInCheckmate(team);
+    }
+
+    @Benchmark
+    public boolean isInStalemate(FreshGame fresh) {
+        return fresh.game.isInStalemate(team);
+    }
+
+    @Benchmark
+    public boolean isInCheckCached() {
+        return game.isInCheck(team);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateCached() {
+        return game.isInCheckmate(team);
+    }
+
+    @Benchmark
+    public boolean isInStalemateCached() {
+        return game.isInStalemate(team);
+    }
+}
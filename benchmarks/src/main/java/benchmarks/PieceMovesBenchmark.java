@@ -0,0 +1,61 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ChessPiece#pieceMoves} for every piece of one type in a
+ * fixture, both colors included. Fixtures without that piece type measure an
+ * empty loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Fixture fixture;
+
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType pieceType;
+
+    private ChessBoard board;
+    private ChessPosition[] positions;
+    private ChessPiece[] pieces;
+
+    @Setup
+    public void setUp() {
+        board = fixture.createGame().getBoard();
+        List<ChessPosition> found = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getPieceType() == pieceType) {
+                    found.add(new ChessPosition(row, col));
+                }
+            }
+        }
+        positions = found.toArray(new ChessPosition[0]);
+        pieces = new ChessPiece[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            pieces[i] = board.getPiece(positions[i]);
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            blackhole.consume(pieces[i].pieceMoves(board, positions[i]));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ParallelSearch;
+import chess.SearchLimits;
+import chess.SearchResult;
+import chess.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time a {@link ParallelSearch} takes to reach a fixed depth in
+ * each fixture, on one thread and on several
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Fixture fixture;
+
+    @Param({"5"})
+    public int depth;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private ChessGame game;
+    private SearchLimits limits;
+    private TranspositionTable table;
+    private ParallelSearch search;
+
+    @Setup
+    public void setUp() {
+        game = fixture.createGame();
+        limits = SearchLimits.depth(depth);
+        table = new TranspositionTable(16);
+        search = new ParallelSearch(table, threads);
+    }
+
+    /**
+     * Each search starts from an empty table; otherwise every search after
+     * the first would find its results already stored
+     */
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return search.search(game, limits);
+    }
+}
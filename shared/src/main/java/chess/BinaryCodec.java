@@ -0,0 +1,325 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A compact, versioned binary encoding of games, boards and moves, for
+ * storing and sending them in a fraction of the space JSON takes.
+ * <p>
+ * Every encoding starts with a version byte. Version 2 is laid out as
+ * follows, with multi-byte numbers big-endian:
+ * <ul>
+ *     <li>Move: the move as 15 bits in two bytes, start square in the top
+ *     six bits, then end square, then the promotion piece as
+ *     {@code PieceType.ordinal() + 1} or 0.</li>
+ *     <li>Board: the occupied squares as an 8-byte mask, then one 4-bit
+ *     piece code per occupied square in square order, two to a byte with the
+ *     lower square in the low half. The code is the piece index (see
+ *     {@link Bitboards#pieceIndex}).</li>
+ *     <li>Game: a byte with the team to move in bit 0, the six castling
+ *     flags above it and, in bit 7, whether a repetition history follows;
+ *     the last move as two bytes with the top bit set, or 0 if there is
+ *     none, followed by a byte with the code of the piece that made it; the
+ *     halfmove clock and fullmove number as unsigned varints; then the board
+ *     without its version byte. If bit 7 is set, the board is followed by the
+ *     number of earlier positions the current one can still repeat, as an
+ *     unsigned varint, and their 8-byte Zobrist keys, oldest first.</li>
+ * </ul>
+ * Version 1 is the same without the repetition history, and can still be
+ * decoded. The starting position takes 30 bytes.
+ */
+public final class BinaryCodec {
+
+    public static final int VERSION = 2;
+
+    private static final int MAX_BOARD_BYTES = 8 + 32;
+    private static final int MAX_GAME_BYTES = 1 + 1 + 3 + 3 + 3 + MAX_BOARD_BYTES;
+    private static final int HAS_MOVE = 0x8000;
+    private static final int HAS_HISTORY = 0x80;
+    private static final int MAX_CLOCK = 0xFFFF;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if either position of the move is off
+     *                                  the board
+     */
+    public static byte[] encode(ChessMove move) {
+        Writer out = new Writer(3);
+        out.writeByte(VERSION);
+        out.writeShort(moveBits(move));
+        return out.toArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a valid encoded move
+     */
+    public static ChessMove decodeMove(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        in.readVersion();
+        ChessMove move = readMove(in, in.readShort());
+        in.expectEnd();
+        return move;
+    }
+
+    public static byte[] encode(ChessBoard board) {
+        Writer out = new Writer(1 + MAX_BOARD_BYTES);
+        out.writeByte(VERSION);
+        writeBoard(out, board);
+        return out.toArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a valid encoded board
+     */
+    public static ChessBoard decodeBoard(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        in.readVersion();
+        ChessBoard board = readBoard(in);
+        in.expectEnd();
+        return board;
+    }
+
+    /**
+     * Encodes a game's board and state, with the keys of the earlier
+     * positions that count towards a threefold repetition. The moves to undo
+     * are not included.
+     */
+    public static byte[] encode(ChessGame game) {
+        GameSnapshot snapshot = game.snapshot();
+        long[] history = snapshot.repetitionKeys();
+        Writer out = new Writer(MAX_GAME_BYTES + 3 + history.length * 8);
+        out.writeByte(VERSION);
+        out.writeByte(snapshot.getTeamTurn().ordinal() | snapshot.castlingFlags() << 1
+                | (history.length > 0 ? HAS_HISTORY : 0));
+        ChessMove lastMove = snapshot.lastMove();
+        if (lastMove == null || snapshot.lastMovedPiece() == null) {
+            out.writeShort(0);
+        } else {
+            out.writeShort(moveBits(lastMove) | HAS_MOVE);
+            out.writeByte(pieceCode(snapshot.lastMovedPiece()));
+        }
+        out.writeVarint(snapshot.getHalfmoveClock());
+        out.writeVarint(snapshot.getFullmoveNumber());
+        writeBoard(out, game.getBoard());
+        if (history.length > 0) {
+            out.writeVarint(history.length);
+            for (long key : history) {
+                out.writeLong(key);
+            }
+        }
+        return out.toArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a valid encoded game
+     */
+    public static ChessGame decodeGame(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        int version = in.readVersion();
+        int state = in.readByte();
+        if (version < 2 && (state & HAS_HISTORY) != 0) {
+            throw in.error("invalid game state");
+        }
+        ChessGame.TeamColor turn = ChessGame.TeamColor.values()[state & 1];
+        ChessMove lastMove = null;
+        ChessPiece lastMovedPiece = null;
+        int moveBits = in.readShort();
+        if (moveBits != 0) {
+            if ((moveBits & HAS_MOVE) == 0) {
+                throw in.error("invalid last move");
+            }
+            lastMove = readMove(in, moveBits & ~HAS_MOVE);
+            lastMovedPiece = readPiece(in, in.readByte());
+        }
+        int halfmove = in.readVarint();
+        int fullmove = in.readVarint();
+        if (halfmove > MAX_CLOCK || fullmove > MAX_CLOCK) {
+            throw in.error("move clock out of range");
+        }
+        ChessBoard board = readBoard(in);
+        long[] history = new long[0];
+        if ((state & HAS_HISTORY) != 0) {
+            int count = in.readVarint();
+            // only positions since the last capture or pawn move can repeat
+            if (count < 1 || count > halfmove) {
+                throw in.error("invalid repetition history length " + count);
+            }
+            history = new long[count];
+            for (int i = 0; i < count; i++) {
+                history[i] = in.readLong();
+            }
+        }
+        in.expectEnd();
+        return GameSnapshot.of(board, turn, (state >>> 1) & 0x3F, halfmove, fullmove, lastMove,
+                lastMovedPiece, history).toGame();
+    }
+
+    private static int moveBits(ChessMove move) {
+        if (!Bitboards.onBoard(move.getStartPosition()) || !Bitboards.onBoard(move.getEndPosition())) {
+            throw new IllegalArgumentException("Cannot encode a move that leaves the board: " + move);
+        }
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return Bitboards.square(move.getStartPosition()) << 9
+                | Bitboards.square(move.getEndPosition()) << 3
+                | (promotion == null ? 0 : promotion.ordinal() + 1);
+    }
+
+    private static ChessMove readMove(Reader in, int bits) {
+        if (bits > 0x7FFF || (bits & 7) > TYPES.length) {
+            throw in.error("invalid move");
+        }
+        int promotion = bits & 7;
+        return ChessMove.of(bits >>> 9, (bits >>> 3) & 63,
+                promotion == 0 ? null : TYPES[promotion - 1]);
+    }
+
+    private static void writeBoard(Writer out, ChessBoard board) {
+        long occupied = board.getOccupied();
+        out.writeLong(occupied);
+        int pending = -1;
+        while (occupied != 0) {
+            int code = pieceCode(board.getPiece(Long.numberOfTrailingZeros(occupied)));
+            if (pending < 0) {
+                pending = code;
+            } else {
+                out.writeByte(pending | code << 4);
+                pending = -1;
+            }
+            occupied &= occupied - 1;
+        }
+        if (pending >= 0) {
+            out.writeByte(pending);
+        }
+    }
+
+    private static ChessBoard readBoard(Reader in) {
+        ChessBoard board = new ChessBoard();
+        long occupied = in.readLong();
+        int packed = 0;
+        boolean high = false;
+        while (occupied != 0) {
+            int code;
+            if (high) {
+                code = packed >>> 4;
+            } else {
+                packed = in.readByte();
+                code = packed & 15;
+            }
+            high = !high;
+            board.addPiece(Long.numberOfTrailingZeros(occupied), readPiece(in, code));
+            occupied &= occupied - 1;
+        }
+        return board;
+    }
+
+    private static int pieceCode(ChessPiece piece) {
+        return Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    private static ChessPiece readPiece(Reader in, int code) {
+        if (code >= 12) {
+            throw in.error("invalid piece code " + code);
+        }
+        return ChessPiece.of(code);
+    }
+
+    private static final class Writer {
+        private final byte[] bytes;
+        private int length;
+
+        Writer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            bytes[length++] = (byte) value;
+        }
+
+        void writeShort(int value) {
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int index;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return the version, which later versions' readers still accept
+         */
+        int readVersion() {
+            int version = readByte();
+            if (version < 1 || version > VERSION) {
+                throw error("unsupported version " + version);
+            }
+            return version;
+        }
+
+        int readByte() {
+            if (index >= bytes.length) {
+                throw error("unexpected end of data");
+            }
+            return bytes[index++] & 0xFF;
+        }
+
+        int readShort() {
+            return readByte() << 8 | readByte();
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | readByte();
+            }
+            return value;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw error("varint too long");
+        }
+
+        void expectEnd() {
+            if (index != bytes.length) {
+                throw error("unexpected data after the end");
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid encoding at byte " + index + ": " + message);
+        }
+    }
+}
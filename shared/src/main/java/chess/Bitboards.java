@@ -0,0 +1,138 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit square sets.
+ * <p>
+ * Squares are numbered 0 to 63 starting at row 1, column 1 and moving
+ * across each row, so bit {@code (row - 1) * 8 + (column - 1)} stands for
+ * the square at that row and column.
+ */
+final class Bitboards {
+
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+
+    /**
+     * The light squares; row 1, column 1 is dark
+     */
+    static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    /**
+     * Squares attacked by a pawn, indexed by color then square
+     */
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    /**
+     * Squares strictly between two squares on a shared row, column or
+     * diagonal, or empty if they are not aligned
+     */
+    static final long[][] BETWEEN = new long[64][64];
+    /**
+     * The full row, column or diagonal through two aligned squares, or empty
+     * if they are not aligned
+     */
+    static final long[][] LINE = new long[64][64];
+
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] KING_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = offsetTargets(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = offsetTargets(square, KING_OFFSETS);
+            PAWN_ATTACKS[WHITE][square] = offsetTargets(square, new int[][]{{1, 1}, {1, -1}});
+            PAWN_ATTACKS[BLACK][square] = offsetTargets(square, new int[][]{{-1, 1}, {-1, -1}});
+            for (int[] direction : KING_OFFSETS) {
+                fillLines(square, direction);
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static long offsetTargets(int square, int[][] offsets) {
+        long targets = 0L;
+        for (int[] offset : offsets) {
+            int row = rowOf(square) + offset[0];
+            int col = columnOf(square) + offset[1];
+            if (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                targets |= bit(square(row, col));
+            }
+        }
+        return targets;
+    }
+
+    private static void fillLines(int from, int[] direction) {
+        long line = bit(from);
+        long between = 0L;
+        int row = rowOf(from) - direction[0];
+        int col = columnOf(from) - direction[1];
+        while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+            line |= bit(square(row, col));
+            row -= direction[0];
+            col -= direction[1];
+        }
+        row = rowOf(from) + direction[0];
+        col = columnOf(from) + direction[1];
+        while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+            line |= bit(square(row, col));
+            row += direction[0];
+            col += direction[1];
+        }
+        row = rowOf(from) + direction[0];
+        col = columnOf(from) + direction[1];
+        while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+            int to = square(row, col);
+            BETWEEN[from][to] = between;
+            LINE[from][to] = line;
+            between |= bit(to);
+            row += direction[0];
+            col += direction[1];
+        }
+    }
+
+    /**
+     * @return True if the row and column are both 1 through 8
+     */
+    static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    static boolean onBoard(ChessPosition position) {
+        return onBoard(position.getRow(), position.getColumn());
+    }
+
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    static int rowOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    static int columnOf(int square) {
+        return (square & 7) + 1;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    static int colorIndex(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE : BLACK;
+    }
+
+    /**
+     * @return the index of the bitboard holding pieces of this color and type,
+     * from 0 to 11
+     */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return colorIndex(color) * 6 + type.ordinal();
+    }
+}
@@ -1,31 +1,80 @@
 package chess;
-import java.util.Objects;
 import java.util.Arrays;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Alongside the square array, the board keeps one bitboard per color and
+ * piece type plus occupancy masks, updated on every {@link #addPiece}. It
+ * also keeps the material and piece-square sums the evaluation reads (see
+ * {@link Evaluation}), so scoring a position does not rescan the board.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
 
     private ChessPiece [] [] squares;
+    private final long[] pieceBitboards = new long[12];
+    private final long[] colorOccupancy = new long[2];
+    private long occupied;
+    private long zobristKey;
+    private long pawnKey;
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
 
     public ChessBoard() {
         squares = new ChessPiece[8][8];
     }
 
+    /**
+     * Creates a copy of another board
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        squares = new ChessPiece[8][];
+        for (int row = 0; row < 8; row++) {
+            squares[row] = other.squares[row].clone();
+        }
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(other.colorOccupancy, 0, colorOccupancy, 0, colorOccupancy.length);
+        occupied = other.occupied;
+        zobristKey = other.zobristKey;
+        pawnKey = other.pawnKey;
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
      * @param position where to add the piece to
      * @param piece    the piece to add
+     * @throws IllegalArgumentException if the position is off the board
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        int rowIndex = position.getRow() - 1;
-        int colIndex = position.getColumn() - 1;
-        squares[rowIndex][colIndex] = piece;
+        if (!Bitboards.onBoard(position)) {
+            throw new IllegalArgumentException("Position is off the board: " + position);
+        }
+        addPiece(Bitboards.square(position), piece);
+    }
+
+    /**
+     * Puts a piece on a square index (see {@link Bitboards}), or clears the
+     * square if the piece is null
+     */
+    void addPiece(int square, ChessPiece piece) {
+        ChessPiece previous = squares[square >>> 3][square & 7];
+        if (previous != null) {
+            clearBit(previous, square);
+        }
+        if (piece != null) {
+            setBit(piece, square);
+        }
+        squares[square >>> 3][square & 7] = piece;
     }
 
     /**
@@ -41,36 +90,219 @@ public class ChessBoard {
         return squares[rowIndex][colIndex];
     }
 
+    /**
+     * Gets a chess piece by its square index (see {@link Bitboards})
+     */
+    ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    /**
+     * @return the squares holding pieces of the given color and type
+     */
+    long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBitboards[Bitboards.pieceIndex(color, type)];
+    }
+
+    /**
+     * @return the squares holding pieces of the given color
+     */
+    long getOccupancy(ChessGame.TeamColor color) {
+        return colorOccupancy[Bitboards.colorIndex(color)];
+    }
+
+    /**
+     * @return the squares holding any piece
+     */
+    long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, kept up to date by
+     * {@link #addPiece}
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return the Zobrist key of the pawns alone, which stays the same while
+     * only other pieces move; kept up to date by {@link #addPiece}
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * @return the middlegame material and piece-square score, positive when
+     * white is ahead, kept up to date by {@link #addPiece}
+     */
+    int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * @return the endgame material and piece-square score, positive when
+     * white is ahead, kept up to date by {@link #addPiece}
+     */
+    int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return the game phase of the material on the board, from 0 for bare
+     * kings and pawns up; see {@link Evaluation#MAX_PHASE}
+     */
+    int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Determines if neither team has enough material left to checkmate: bare
+     * kings, a king with a single knight or bishop against a bare king, or
+     * only bishops that all stand on squares of one color. Reads the piece
+     * bitboards, so it costs a few bit counts however the pieces got there.
+     *
+     * @return True if no sequence of moves can end in checkmate
+     */
+    boolean hasInsufficientMaterial() {
+        int white = Bitboards.WHITE * 6;
+        int black = Bitboards.BLACK * 6;
+        long heavy = pieceBitboards[white + ChessPiece.PieceType.QUEEN.ordinal()]
+                | pieceBitboards[white + ChessPiece.PieceType.ROOK.ordinal()]
+                | pieceBitboards[white + ChessPiece.PieceType.PAWN.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.QUEEN.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.ROOK.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.PAWN.ordinal()];
+        if (heavy != 0) {
+            return false;
+        }
+        long knights = pieceBitboards[white + ChessPiece.PieceType.KNIGHT.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.KNIGHT.ordinal()];
+        long bishops = pieceBitboards[white + ChessPiece.PieceType.BISHOP.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.BISHOP.ordinal()];
+        int minors = Long.bitCount(knights | bishops);
+        if (minors <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & Bitboards.LIGHT_SQUARES) == 0 || (bishops & ~Bitboards.LIGHT_SQUARES) == 0);
+    }
+
+    /**
+     * Determines if any piece of the given color attacks a square. Probes
+     * outward from the square with knight, pawn and king patterns and slider
+     * rays, returning on the first attacker found.
+     *
+     * @param square   the square index to test
+     * @param attacker the color of the attacking side
+     * @return True if the square is attacked
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        return isSquareAttacked(square, attacker, occupied, 0L);
+    }
+
+    /**
+     * Determines if a square would be attacked if the board had a different
+     * set of occupied squares, for example after a piece has been lifted off.
+     *
+     * @param square   the square index to test
+     * @param attacker the color of the attacking side
+     * @param occupied the occupancy to use for slider rays
+     * @param ignored  squares whose pieces should not count as attackers
+     * @return True if the square is attacked
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker, long occupied, long ignored) {
+        int side = Bitboards.colorIndex(attacker) * 6;
+        long live = ~ignored;
+        if ((Bitboards.KNIGHT_ATTACKS[square] & pieceBitboards[side + ChessPiece.PieceType.KNIGHT.ordinal()] & live) != 0) {
+            return true;
+        }
+        // a pawn attacks this square exactly when a defending pawn here would attack the pawn's square
+        long pawnSources = Bitboards.PAWN_ATTACKS[1 - Bitboards.colorIndex(attacker)][square];
+        if ((pawnSources & pieceBitboards[side + ChessPiece.PieceType.PAWN.ordinal()] & live) != 0) {
+            return true;
+        }
+        if ((Bitboards.KING_ATTACKS[square] & pieceBitboards[side + ChessPiece.PieceType.KING.ordinal()] & live) != 0) {
+            return true;
+        }
+        long queens = pieceBitboards[side + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonal = (pieceBitboards[side + ChessPiece.PieceType.BISHOP.ordinal()] | queens) & live;
+        if (diagonal != 0 && (SliderAttacks.bishopAttacks(square, occupied) & diagonal) != 0) {
+            return true;
+        }
+        long straight = (pieceBitboards[side + ChessPiece.PieceType.ROOK.ordinal()] | queens) & live;
+        return straight != 0 && (SliderAttacks.rookAttacks(square, occupied) & straight) != 0;
+    }
+
+    private void setBit(ChessPiece piece, int square) {
+        long bit = Bitboards.bit(square);
+        int index = Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceBitboards[index] |= bit;
+        zobristKey ^= Zobrist.piece(index, square);
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            pawnKey ^= Zobrist.piece(index, square);
+        }
+        middlegameScore += Evaluation.middlegame(index, square);
+        endgameScore += Evaluation.endgame(index, square);
+        phase += Evaluation.PHASE_WEIGHT[piece.getPieceType().ordinal()];
+        colorOccupancy[Bitboards.colorIndex(piece.getTeamColor())] |= bit;
+        occupied |= bit;
+    }
+
+    private void clearBit(ChessPiece piece, int square) {
+        long bit = ~Bitboards.bit(square);
+        int index = Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceBitboards[index] &= bit;
+        zobristKey ^= Zobrist.piece(index, square);
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            pawnKey ^= Zobrist.piece(index, square);
+        }
+        middlegameScore -= Evaluation.middlegame(index, square);
+        endgameScore -= Evaluation.endgame(index, square);
+        phase -= Evaluation.PHASE_WEIGHT[piece.getPieceType().ordinal()];
+        colorOccupancy[Bitboards.colorIndex(piece.getTeamColor())] &= bit;
+        occupied &= bit;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
         squares = new ChessPiece[8][8];
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        occupied = 0L;
+        zobristKey = 0L;
+        pawnKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
 
-        addPiece(new ChessPosition(1,1),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1,2),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,3),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,4),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1,5),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1,6),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,7),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,8),new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,1),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,2),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,3),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,4),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1,5),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1,6),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,7),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,8),ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
 
         for(int col = 1; col <= 8; col ++){
-            addPiece(new ChessPosition(2,col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2,col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
         for(int col = 1; col <= 8; col ++){
-            addPiece(new ChessPosition(7,col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7,col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
-        addPiece(new ChessPosition(8,1),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8,2),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,3),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,4),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8,5),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8,6),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,7),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,8),new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,1),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,2),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,3),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,4),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8,5),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8,6),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,7),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,8),ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
 
     }
     @Override
@@ -86,11 +318,11 @@ public class ChessBoard {
         }
         ChessBoard other = (ChessBoard) o;
 
-        return Arrays.deepEquals(squares, other.squares);
+        return Arrays.equals(pieceBitboards, other.pieceBitboards);
     }
     @Override
     public int hashCode(){
-        return  Arrays.deepHashCode(squares);
+        return (int) (zobristKey ^ (zobristKey >>> 32));
     }
     @Override
     public String toString(){
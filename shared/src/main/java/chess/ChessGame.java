@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -22,11 +21,70 @@ public class ChessGame {
     private boolean blackRightRookHasMoved = false;
     private ChessMove lastMove = null;
     private ChessPiece lastMovedPiece = null;
+    private final int[] kingSquares = {-1, -1};
+    private long stateKey;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private transient UndoStack undoStack;
+    private transient PositionHistory history;
+    private transient GameStatus status;
+    private transient int[] moveBuffer;
 
     public ChessGame() {
         this.board = new ChessBoard();
         this.board.resetBoard();
         this.teamTurn = TeamColor.WHITE;
+        rescanKings();
+        refreshStateKey();
+    }
+
+    /**
+     * Creates a copy of another game, including its board, castling state and
+     * last move
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.teamTurn = other.teamTurn;
+        this.board = new ChessBoard(other.board);
+        this.whiteKingHasMoved = other.whiteKingHasMoved;
+        this.blackKingHasMoved = other.blackKingHasMoved;
+        this.whiteLeftRookHasMoved = other.whiteLeftRookHasMoved;
+        this.whiteRightRookHasMoved = other.whiteRightRookHasMoved;
+        this.blackLeftRookHasMoved = other.blackLeftRookHasMoved;
+        this.blackRightRookHasMoved = other.blackRightRookHasMoved;
+        this.lastMove = other.lastMove;
+        this.lastMovedPiece = other.lastMovedPiece;
+        this.kingSquares[0] = other.kingSquares[0];
+        this.kingSquares[1] = other.kingSquares[1];
+        this.stateKey = other.stateKey;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.undoStack = other.undoStack == null ? null : new UndoStack(other.undoStack);
+        this.history = other.history == null ? null : new PositionHistory(other.history);
+    }
+
+    /**
+     * Creates a game in the state a snapshot was taken in. The new game has
+     * no moves to undo, but keeps counting repetitions of the positions that
+     * came before the snapshot.
+     *
+     * @param snapshot the snapshot to restore
+     */
+    public ChessGame(GameSnapshot snapshot) {
+        this.board = snapshot.toBoard();
+        this.teamTurn = snapshot.getTeamTurn();
+        setCastlingFlags(snapshot.castlingFlags());
+        this.lastMove = snapshot.lastMove();
+        this.lastMovedPiece = snapshot.lastMovedPiece();
+        this.halfmoveClock = snapshot.getHalfmoveClock();
+        this.fullmoveNumber = snapshot.getFullmoveNumber();
+        rescanKings();
+        refreshStateKey();
+        long[] keys = snapshot.repetitionKeys();
+        if (keys.length > 0) {
+            restoreHistory(keys);
+        }
     }
 
     /**
@@ -43,6 +101,8 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.teamTurn = team;
+        refreshStateKey();
+        history = null;
     }
 
     /**
@@ -66,23 +126,34 @@ public class ChessGame {
             return null;
         }
 
-        Collection<ChessMove> candidateMoves = new ArrayList<>(piece.pieceMoves(board, startPosition));
-
-        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
-            addCastlingMoves(startPosition, piece.getTeamColor(), candidateMoves);
-        }
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            addEnPassantMoves(startPosition, piece.getTeamColor(), candidateMoves);
-        }
+        int[] buffer = moveBuffer();
+        int square = Bitboards.square(startPosition);
+        int count = piece.getTeamColor() == teamTurn
+                ? status().movesFrom(square, buffer)
+                : moveGenerator(piece.getTeamColor()).generate(square, buffer, 0);
+        return PackedMove.toChessMoves(buffer, count);
+    }
 
-        Collection<ChessMove> validMovesList = new ArrayList<>();
-        for (ChessMove move : candidateMoves) {
-            if (!wouldLeaveKingInCheck(move, piece.getTeamColor())) {
-                validMovesList.add(move);
-            }
-        }
+    /**
+     * Gets all valid moves of the team whose turn it is. The moves are worked
+     * out once per position and shared by repeated calls.
+     *
+     * @return unmodifiable collection of the valid moves
+     */
+    public Collection<ChessMove> validMoves() {
+        return status().moveList();
+    }
 
-        return validMovesList;
+    /**
+     * Writes all valid moves of the team whose turn it is into a buffer as
+     * {@link PackedMove} ints, without allocating move objects
+     *
+     * @param buffer where to write the moves; {@link PackedMove#MAX_MOVES}
+     *               entries is always enough
+     * @return the number of moves written
+     */
+    public int validMoves(int[] buffer) {
+        return moveGenerator(teamTurn).generateAll(buffer, 0);
     }
 
     /**
@@ -93,6 +164,9 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPosition start = move.getStartPosition();
+        if (!Bitboards.onBoard(start) || !Bitboards.onBoard(move.getEndPosition())) {
+            throw new InvalidMoveException("Move leaves the board");
+        }
         ChessPiece piece = board.getPiece(start);
 
         if (piece == null) {
@@ -103,61 +177,138 @@ public class ChessGame {
             throw new InvalidMoveException("Not your turn");
         }
 
-        Collection<ChessMove> validMovesList = validMoves(start);
-        if (validMovesList == null || !validMovesList.contains(move)) {
-            throw new InvalidMoveException("Invalid move");
+        if (isDraw()) {
+            throw new InvalidMoveException("Game is over");
         }
 
-        ChessPosition end = move.getEndPosition();
-        ChessPiece.PieceType promotion = move.getPromotionPiece();
-
-        boolean isCastling = false;
-        if (piece.getPieceType() == ChessPiece.PieceType.KING
-                && Math.abs(end.getColumn() - start.getColumn()) == 2) {
-            isCastling = true;
+        int packed = findValidMove(move);
+        if (packed < 0) {
+            throw new InvalidMoveException("Invalid move");
         }
 
-        boolean isEnPassant = false;
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN
-                && start.getColumn() != end.getColumn()
-                && board.getPiece(end) == null) {
-            isEnPassant = true;
-        }
+        applyMove(packed);
+    }
+
+    /**
+     * Plays a move already known to be valid, as produced by the move
+     * generator, without checking it again
+     *
+     * @param move the packed move to play
+     */
+    void applyMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.getPiece(from);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        PositionHistory history = history();
+
+        ChessPiece captured = PackedMove.hasFlag(move, PackedMove.EN_PASSANT)
+                ? board.getPiece(Bitboards.square(Bitboards.rowOf(from), Bitboards.columnOf(to)))
+                : board.getPiece(to);
+        undoStack().push(UndoStack.pack(move, castlingFlags(), kingSquares[Bitboards.WHITE], kingSquares[Bitboards.BLACK]),
+                stateKey, halfmoveClock, captured, lastMove, lastMovedPiece);
 
         if (promotion != null) {
-            ChessPiece newPiece = new ChessPiece(piece.getTeamColor(), promotion);
-            board.addPiece(end, newPiece);
+            board.addPiece(to, ChessPiece.of(piece.getTeamColor(), promotion));
         } else {
-            board.addPiece(end, piece);
+            board.addPiece(to, piece);
         }
-        board.addPiece(start, null);
+        board.addPiece(from, null);
 
-        if (isCastling) {
-            int row = start.getRow();
-            if (end.getColumn() == 7) {
-                ChessPiece rook = board.getPiece(new ChessPosition(row, 8));
-                board.addPiece(new ChessPosition(row, 6), rook);
-                board.addPiece(new ChessPosition(row, 8), null);
+        if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+            int row = Bitboards.rowOf(from);
+            if (Bitboards.columnOf(to) == 7) {
+                board.addPiece(Bitboards.square(row, 6), board.getPiece(Bitboards.square(row, 8)));
+                board.addPiece(Bitboards.square(row, 8), null);
             } else {
-                ChessPiece rook = board.getPiece(new ChessPosition(row, 1));
-                board.addPiece(new ChessPosition(row, 4), rook);
-                board.addPiece(new ChessPosition(row, 1), null);
+                board.addPiece(Bitboards.square(row, 4), board.getPiece(Bitboards.square(row, 1)));
+                board.addPiece(Bitboards.square(row, 1), null);
             }
         }
 
-        if (isEnPassant) {
-            board.addPiece(new ChessPosition(start.getRow(), end.getColumn()), null);
+        if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+            board.addPiece(Bitboards.square(Bitboards.rowOf(from), Bitboards.columnOf(to)), null);
         }
 
-        updateCastlingFlags(piece, start);
+        updateCastlingFlags(piece, from, to);
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[Bitboards.colorIndex(piece.getTeamColor())] = to;
+        }
 
-        lastMove = move;
+        lastMove = ChessMove.of(from, to, promotion);
         lastMovedPiece = piece;
+        if (captured != null || piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
 
         if (teamTurn == TeamColor.WHITE) {
             teamTurn = TeamColor.BLACK;
         } else {
             teamTurn = TeamColor.WHITE;
+            fullmoveNumber++;
+        }
+        refreshStateKey();
+        history.push(getZobristKey());
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove}, restoring the
+     * board, the team to move, castling and en passant state exactly as they
+     * were. Moves can be undone all the way back to the last call to
+     * {@link #setBoard}.
+     *
+     * @throws IllegalStateException if there is no move to undo
+     */
+    public void undoMove() {
+        UndoStack undoStack = undoStack();
+        if (undoStack.isEmpty()) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int top = undoStack.size() - 1;
+        int move = undoStack.move(top);
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece moved = lastMovedPiece;
+
+        board.addPiece(from, moved);
+        if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+            board.addPiece(to, null);
+            board.addPiece(Bitboards.square(Bitboards.rowOf(from), Bitboards.columnOf(to)), undoStack.captured(top));
+        } else {
+            board.addPiece(to, undoStack.captured(top));
+        }
+
+        if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+            int row = Bitboards.rowOf(from);
+            if (Bitboards.columnOf(to) == 7) {
+                board.addPiece(Bitboards.square(row, 8), board.getPiece(Bitboards.square(row, 6)));
+                board.addPiece(Bitboards.square(row, 6), null);
+            } else {
+                board.addPiece(Bitboards.square(row, 1), board.getPiece(Bitboards.square(row, 4)));
+                board.addPiece(Bitboards.square(row, 4), null);
+            }
+        }
+
+        setCastlingFlags(undoStack.castlingFlags(top));
+        kingSquares[Bitboards.WHITE] = undoStack.whiteKing(top);
+        kingSquares[Bitboards.BLACK] = undoStack.blackKing(top);
+        lastMove = undoStack.lastMove(top);
+        lastMovedPiece = undoStack.lastMovedPiece(top);
+        stateKey = undoStack.stateKey(top);
+        halfmoveClock = undoStack.halfmoveClock(top);
+        teamTurn = moved.getTeamColor();
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        undoStack.pop();
+
+        if (history != null && history.size() > 1) {
+            history.pop();
+        } else {
+            // the history started after this move, e.g. at a setTeamTurn
+            history = null;
         }
     }
 
@@ -168,26 +319,14 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKing(teamColor);
-        if (kingPosition == null) {
-            return false;
+        if (teamColor == teamTurn && status != null && status.matches(board, getZobristKey())) {
+            return status.inCheck();
         }
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null && piece.getTeamColor() != teamColor) {
-                    Collection<ChessMove> moves = piece.pieceMoves(board, pos);
-                    for (ChessMove move : moves) {
-                        if (move.getEndPosition().equals(kingPosition)) {
-                            return true;
-                        }
-                    }
-                }
-            }
+        int kingSquare = findKing(teamColor);
+        if (kingSquare < 0) {
+            return false;
         }
-        return false;
+        return board.isSquareAttacked(kingSquare, opponent(teamColor));
     }
 
     /**
@@ -197,6 +336,10 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            GameStatus current = status();
+            return current.inCheck() && !current.hasMoves();
+        }
         if (!isInCheck(teamColor)) {
             return false;
         }
@@ -211,12 +354,87 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            GameStatus current = status();
+            return !current.inCheck() && !current.hasMoves();
+        }
         if (isInCheck(teamColor)) {
             return false;
         }
         return !hasAnyValidMove(teamColor);
     }
 
+    /**
+     * Determines if the game has ended in a draw by threefold repetition,
+     * the fifty-move rule or insufficient material. No more moves can be made
+     * once it has.
+     *
+     * @return True if the game is drawn
+     */
+    public boolean isDraw() {
+        return isInsufficientMaterial() || isThreefoldRepetition() || isFiftyMoveRule();
+    }
+
+    /**
+     * Determines if neither team can checkmate any more, whatever is played:
+     * king against king, king and a single bishop or knight against king, or
+     * kings with bishops that all stand on squares of the same color
+     *
+     * @return True if the position is dead for lack of material
+     */
+    public boolean isInsufficientMaterial() {
+        return board.hasInsufficientMaterial();
+    }
+
+    /**
+     * @return True if the current position has occurred three times, with the
+     * same team to move and the same castling and en passant possibilities
+     */
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 3;
+    }
+
+    /**
+     * @return True if fifty moves by each team have passed without a capture
+     * or a pawn move
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Determines if the game has ended, by checkmate, stalemate or a draw
+     *
+     * @return True if the team to move cannot or may not move
+     */
+    public boolean isGameOver() {
+        return isDraw() || !status().hasMoves();
+    }
+
+    /**
+     * @return how many times the current position has occurred since the board
+     * was last set up, counting this time
+     */
+    public int getRepetitionCount() {
+        return history().count(getZobristKey());
+    }
+
+    /**
+     * @return the number of moves by either team since the last capture or
+     * pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current full move, starting at 1 and going
+     * up after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
     /**
      * Sets this game's chessboard to a given board
      *
@@ -224,6 +442,15 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        undoStack().clear();
+        history = null;
+        if (status != null) {
+            status.invalidate();
+        }
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        rescanKings();
+        refreshStateKey();
     }
 
     /**
@@ -235,206 +462,356 @@ public class ChessGame {
         return board;
     }
 
-    private ChessPosition findKing(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null
-                        && piece.getTeamColor() == teamColor
-                        && piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    return pos;
-                }
-            }
-        }
-        return null;
+    /**
+     * Sets up the state that is not on the board, as read from a FEN string.
+     * Castling rights become the king and rook moved flags, and an en passant
+     * square becomes a last move of the pawn that just advanced two squares.
+     *
+     * @param turn            the team to move
+     * @param castlingRights  a combination of the {@link Zobrist} castling bits
+     * @param enPassantSquare the en passant target square, or -1 for none
+     * @param halfmoveClock   moves since the last capture or pawn move
+     * @param fullmoveNumber  the current full move number
+     */
+    void setPosition(TeamColor turn, int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber) {
+        this.teamTurn = turn;
+        whiteKingHasMoved = (castlingRights & (Zobrist.WHITE_KINGSIDE | Zobrist.WHITE_QUEENSIDE)) == 0;
+        whiteRightRookHasMoved = (castlingRights & Zobrist.WHITE_KINGSIDE) == 0;
+        whiteLeftRookHasMoved = (castlingRights & Zobrist.WHITE_QUEENSIDE) == 0;
+        blackKingHasMoved = (castlingRights & (Zobrist.BLACK_KINGSIDE | Zobrist.BLACK_QUEENSIDE)) == 0;
+        blackRightRookHasMoved = (castlingRights & Zobrist.BLACK_KINGSIDE) == 0;
+        blackLeftRookHasMoved = (castlingRights & Zobrist.BLACK_QUEENSIDE) == 0;
+
+        if (enPassantSquare < 0) {
+            lastMove = null;
+            lastMovedPiece = null;
+        } else {
+            TeamColor mover = opponent(turn);
+            int col = Bitboards.columnOf(enPassantSquare);
+            int from = mover == TeamColor.WHITE ? Bitboards.square(2, col) : Bitboards.square(7, col);
+            int to = mover == TeamColor.WHITE ? Bitboards.square(4, col) : Bitboards.square(5, col);
+            lastMove = ChessMove.of(from, to, null);
+            lastMovedPiece = ChessPiece.of(mover, ChessPiece.PieceType.PAWN);
+        }
+
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        undoStack().clear();
+        history = null;
+        refreshStateKey();
     }
 
-    private boolean wouldLeaveKingInCheck(ChessMove move, TeamColor team) {
-        ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
+    /**
+     * @return the keys of the earlier positions the current one can still
+     * repeat, oldest first: those since the last capture or pawn move, as far
+     * back as the history goes. The current position is not included.
+     */
+    long[] repetitionKeys() {
+        if (history == null) {
+            return new long[0];
+        }
+        int count = Math.min(history.size() - 1, halfmoveClock);
+        long[] keys = new long[count];
+        int first = history.size() - 1 - count;
+        for (int i = 0; i < count; i++) {
+            keys[i] = history.get(first + i);
+        }
+        return keys;
+    }
 
-        ChessPiece movingPiece = board.getPiece(start);
-        ChessPiece capturedPiece = board.getPiece(end);
+    /**
+     * Restores the positions that came before the current one, as returned
+     * by {@link #repetitionKeys}, so repetitions keep counting across a save
+     * and load. There are still no moves to undo.
+     *
+     * @param keys the earlier position keys, oldest first
+     */
+    void setRepetitionKeys(long[] keys) {
+        undoStack().clear();
+        restoreHistory(keys);
+    }
 
-        ChessPosition enPassantSquare = null;
-        ChessPiece enPassantCapturedPawn = null;
-        if (movingPiece != null
-                && movingPiece.getPieceType() == ChessPiece.PieceType.PAWN
-                && start.getColumn() != end.getColumn()
-                && capturedPiece == null) {
-            enPassantSquare = new ChessPosition(start.getRow(), end.getColumn());
-            enPassantCapturedPawn = board.getPiece(enPassantSquare);
-            board.addPiece(enPassantSquare, null);
+    private void restoreHistory(long[] keys) {
+        history = new PositionHistory();
+        for (long key : keys) {
+            history.push(key);
         }
+        history.push(board.getZobristKey() ^ stateKey);
+    }
 
-        board.addPiece(end, movingPiece);
-        board.addPiece(start, null);
+    /**
+     * Takes a compact snapshot of the game's current state: the board, the
+     * team to move, castling and en passant state, the move clocks and the
+     * earlier positions that count towards a repetition. The moves for
+     * {@link #undoMove} are not included.
+     *
+     * @return the snapshot
+     */
+    public GameSnapshot snapshot() {
+        return GameSnapshot.of(board, teamTurn, castlingFlags(), halfmoveClock, fullmoveNumber, lastMove,
+                lastMovedPiece, repetitionKeys());
+    }
 
-        boolean inCheck = isInCheck(team);
+    /**
+     * Gets a 64-bit Zobrist key identifying the current position: the pieces,
+     * the team to move, the castling rights and the en passant file. The
+     * piece part is kept up to date by the board as pieces move; the rest is
+     * updated by {@link #makeMove}.
+     *
+     * @return the position key
+     */
+    public long getZobristKey() {
+        return board.getZobristKey() ^ stateKey;
+    }
 
-        board.addPiece(start, movingPiece);
-        board.addPiece(end, capturedPiece);
+    /**
+     * Returns the tracked king square for a team. The cached square is only
+     * trusted while the board still has that team's king there; if the board
+     * was changed from outside the game, the king is looked up again.
+     *
+     * @return the king's square index, or -1 if the team has no king
+     */
+    private int findKing(TeamColor teamColor) {
+        int color = Bitboards.colorIndex(teamColor);
+        int square = kingSquares[color];
+        long kings = board.getPieces(teamColor, ChessPiece.PieceType.KING);
+        if (square < 0 || (kings & Bitboards.bit(square)) == 0) {
+            square = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+            kingSquares[color] = square;
+        }
+        return square;
+    }
 
-        if (enPassantSquare != null) {
-            board.addPiece(enPassantSquare, enPassantCapturedPawn);
+    private void rescanKings() {
+        for (TeamColor color : TeamColor.values()) {
+            long kings = board.getPieces(color, ChessPiece.PieceType.KING);
+            kingSquares[Bitboards.colorIndex(color)] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
         }
-
-        return inCheck;
     }
 
     private boolean hasAnyValidMove(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> moves = validMoves(pos);
-                    if (moves != null && !moves.isEmpty()) {
-                        return true;
-                    }
-                }
+        MoveGenerator generator = moveGenerator(teamColor);
+        int[] buffer = moveBuffer();
+        long pieces = board.getOccupancy(teamColor);
+        while (pieces != 0) {
+            if (generator.generate(Long.numberOfTrailingZeros(pieces), buffer, 0) > 0) {
+                return true;
             }
+            pieces &= pieces - 1;
         }
         return false;
     }
 
-    private void updateCastlingFlags(ChessPiece piece, ChessPosition start) {
-        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
-            if (piece.getTeamColor() == TeamColor.WHITE) {
-                whiteKingHasMoved = true;
-            } else {
-                blackKingHasMoved = true;
+    /**
+     * Looks a move up among the valid moves of its piece
+     *
+     * @return the packed move with its flags, or -1 if the move is not valid
+     */
+    private int findValidMove(ChessMove move) {
+        int wanted = PackedMove.encode(move);
+        int[] buffer = moveBuffer();
+        int count = status != null && status.matches(board, getZobristKey())
+                ? status.movesFrom(PackedMove.from(wanted), buffer)
+                : moveGenerator(teamTurn).generate(PackedMove.from(wanted), buffer, 0);
+        for (int i = 0; i < count; i++) {
+            if (PackedMove.sameMove(buffer[i], wanted)) {
+                return buffer[i];
             }
         }
-        if (piece.getPieceType() == ChessPiece.PieceType.ROOK) {
-            int row = start.getRow();
-            int col = start.getColumn();
-            if (row == 1 && col == 1) {
-                whiteLeftRookHasMoved = true;
-            }
-            if (row == 1 && col == 8) {
-                whiteRightRookHasMoved = true;
-            }
-            if (row == 8 && col == 1) {
-                blackLeftRookHasMoved = true;
-            }
-            if (row == 8 && col == 8) {
-                blackRightRookHasMoved = true;
-            }
+        return -1;
+    }
+
+    /**
+     * @return the status of the current position for the team to move,
+     * computed now if the cached one belongs to another position
+     */
+    private GameStatus status() {
+        long key = getZobristKey();
+        if (status == null) {
+            status = new GameStatus();
+        }
+        if (!status.matches(board, key)) {
+            status.update(board, key, moveGenerator(teamTurn));
+        }
+        return status;
+    }
+
+    private UndoStack undoStack() {
+        if (undoStack == null) {
+            undoStack = new UndoStack();
+        }
+        return undoStack;
+    }
+
+    /**
+     * The position history starts at the current position the first time it
+     * is needed after the game was created or set up
+     */
+    private PositionHistory history() {
+        if (history == null) {
+            history = new PositionHistory();
+            history.push(getZobristKey());
         }
+        return history;
     }
 
-    private void addCastlingMoves(ChessPosition kingPosition, TeamColor team, Collection<ChessMove> moves) {
-        if (isInCheck(team)) {
-            return;
+    private int[] moveBuffer() {
+        if (moveBuffer == null) {
+            moveBuffer = new int[PackedMove.MAX_MOVES];
         }
+        return moveBuffer;
+    }
 
-        int row;
+    private MoveGenerator moveGenerator(TeamColor team) {
         boolean kingMoved;
         boolean leftRookMoved;
         boolean rightRookMoved;
-
         if (team == TeamColor.WHITE) {
-            row = 1;
             kingMoved = whiteKingHasMoved;
             leftRookMoved = whiteLeftRookHasMoved;
             rightRookMoved = whiteRightRookHasMoved;
         } else {
-            row = 8;
             kingMoved = blackKingHasMoved;
             leftRookMoved = blackLeftRookHasMoved;
             rightRookMoved = blackRightRookHasMoved;
         }
+        return new MoveGenerator(board, team, findKing(team),
+                !kingMoved && !rightRookMoved, !kingMoved && !leftRookMoved, findEnPassantTarget(team));
+    }
 
-        if (kingMoved) {
-            return;
+    /**
+     * Records that a king or rook has left its home square. A move landing on
+     * a corner also counts, since it captures whatever rook was there.
+     */
+    private void updateCastlingFlags(ChessPiece piece, int from, int to) {
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            if (piece.getTeamColor() == TeamColor.WHITE) {
+                whiteKingHasMoved = true;
+            } else {
+                blackKingHasMoved = true;
+            }
         }
-        if (kingPosition.getRow() != row || kingPosition.getColumn() != 5) {
-            return;
+        if (piece.getPieceType() == ChessPiece.PieceType.ROOK) {
+            markRookMoved(from);
         }
+        markRookMoved(to);
+    }
 
-        if (!rightRookMoved) {
-            ChessPiece rook = board.getPiece(new ChessPosition(row, 8));
-            if (rook != null && rook.getPieceType() == ChessPiece.PieceType.ROOK) {
-                if (board.getPiece(new ChessPosition(row, 6)) == null
-                        && board.getPiece(new ChessPosition(row, 7)) == null) {
-                    if (!squareIsAttacked(new ChessPosition(row, 6), team)
-                            && !squareIsAttacked(new ChessPosition(row, 7), team)) {
-                        moves.add(new ChessMove(kingPosition, new ChessPosition(row, 7), null));
-                    }
-                }
-            }
-        }
+    private int castlingFlags() {
+        return (whiteKingHasMoved ? 1 : 0)
+                | (whiteLeftRookHasMoved ? 2 : 0)
+                | (whiteRightRookHasMoved ? 4 : 0)
+                | (blackKingHasMoved ? 8 : 0)
+                | (blackLeftRookHasMoved ? 16 : 0)
+                | (blackRightRookHasMoved ? 32 : 0);
+    }
 
-        if (!leftRookMoved) {
-            ChessPiece rook = board.getPiece(new ChessPosition(row, 1));
-            if (rook != null && rook.getPieceType() == ChessPiece.PieceType.ROOK) {
-                if (board.getPiece(new ChessPosition(row, 2)) == null
-                        && board.getPiece(new ChessPosition(row, 3)) == null
-                        && board.getPiece(new ChessPosition(row, 4)) == null) {
-                    if (!squareIsAttacked(new ChessPosition(row, 3), team)
-                            && !squareIsAttacked(new ChessPosition(row, 4), team)) {
-                        moves.add(new ChessMove(kingPosition, new ChessPosition(row, 3), null));
-                    }
-                }
-            }
+    private void setCastlingFlags(int flags) {
+        whiteKingHasMoved = (flags & 1) != 0;
+        whiteLeftRookHasMoved = (flags & 2) != 0;
+        whiteRightRookHasMoved = (flags & 4) != 0;
+        blackKingHasMoved = (flags & 8) != 0;
+        blackLeftRookHasMoved = (flags & 16) != 0;
+        blackRightRookHasMoved = (flags & 32) != 0;
+    }
+
+    private void markRookMoved(int square) {
+        if (square == Bitboards.square(1, 1)) {
+            whiteLeftRookHasMoved = true;
+        }
+        if (square == Bitboards.square(1, 8)) {
+            whiteRightRookHasMoved = true;
+        }
+        if (square == Bitboards.square(8, 1)) {
+            blackLeftRookHasMoved = true;
+        }
+        if (square == Bitboards.square(8, 8)) {
+            blackRightRookHasMoved = true;
         }
     }
 
-    private void addEnPassantMoves(ChessPosition pawnPosition, TeamColor team, Collection<ChessMove> moves) {
+    /**
+     * Finds the square a pawn of the given team could capture onto en passant,
+     * which is only possible right after an enemy pawn advanced two squares.
+     *
+     * @return the target square index, or -1 if there is none
+     */
+    int enPassantTarget(TeamColor team) {
+        return findEnPassantTarget(team);
+    }
+
+    private int findEnPassantTarget(TeamColor team) {
         if (lastMove == null || lastMovedPiece == null) {
-            return;
+            return -1;
         }
-        if (lastMovedPiece.getPieceType() != ChessPiece.PieceType.PAWN) {
-            return;
+        if (lastMovedPiece.getPieceType() != ChessPiece.PieceType.PAWN || lastMovedPiece.getTeamColor() == team) {
+            return -1;
         }
 
-        int lastStartRow = lastMove.getStartPosition().getRow();
-        int lastEndRow = lastMove.getEndPosition().getRow();
-        int lastEndCol = lastMove.getEndPosition().getColumn();
-
-        if (Math.abs(lastStartRow - lastEndRow) != 2) {
-            return;
+        ChessPosition lastStart = lastMove.getStartPosition();
+        ChessPosition lastEnd = lastMove.getEndPosition();
+        if (Math.abs(lastStart.getRow() - lastEnd.getRow()) != 2) {
+            return -1;
+        }
+        if (!lastMovedPiece.equals(board.getPiece(lastEnd))) {
+            return -1;
         }
+        return Bitboards.square((lastStart.getRow() + lastEnd.getRow()) / 2, lastEnd.getColumn());
+    }
 
-        int myRow = pawnPosition.getRow();
-        int myCol = pawnPosition.getColumn();
+    /**
+     * @return the castling rights still usable in this position, as a
+     * combination of the {@link Zobrist} castling bits
+     */
+    int castlingRights() {
+        return findCastlingRights();
+    }
 
-        if (myRow != lastEndRow) {
-            return;
+    private int findCastlingRights() {
+        int rights = 0;
+        if (!whiteKingHasMoved && hasPiece(1, 5, TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            if (!whiteRightRookHasMoved && hasPiece(1, 8, TeamColor.WHITE, ChessPiece.PieceType.ROOK)) {
+                rights |= Zobrist.WHITE_KINGSIDE;
+            }
+            if (!whiteLeftRookHasMoved && hasPiece(1, 1, TeamColor.WHITE, ChessPiece.PieceType.ROOK)) {
+                rights |= Zobrist.WHITE_QUEENSIDE;
+            }
         }
-        if (Math.abs(myCol - lastEndCol) != 1) {
-            return;
+        if (!blackKingHasMoved && hasPiece(8, 5, TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            if (!blackRightRookHasMoved && hasPiece(8, 8, TeamColor.BLACK, ChessPiece.PieceType.ROOK)) {
+                rights |= Zobrist.BLACK_KINGSIDE;
+            }
+            if (!blackLeftRookHasMoved && hasPiece(8, 1, TeamColor.BLACK, ChessPiece.PieceType.ROOK)) {
+                rights |= Zobrist.BLACK_QUEENSIDE;
+            }
         }
+        return rights;
+    }
 
-        int targetRow;
-        if (team == TeamColor.WHITE) {
-            targetRow = myRow + 1;
-        } else {
-            targetRow = myRow - 1;
-        }
-
-        ChessPosition target = new ChessPosition(targetRow, lastEndCol);
-        moves.add(new ChessMove(pawnPosition, target, null));
-    }
-
-    private boolean squareIsAttacked(ChessPosition position, TeamColor team) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null && piece.getTeamColor() != team) {
-                    Collection<ChessMove> pieceMoves = piece.pieceMoves(board, pos);
-                    for (ChessMove move : pieceMoves) {
-                        if (move.getEndPosition().equals(position)) {
-                            return true;
-                        }
-                    }
-                }
+    private boolean hasPiece(int row, int col, TeamColor color, ChessPiece.PieceType type) {
+        return (board.getPieces(color, type) & Bitboards.bit(Bitboards.square(row, col))) != 0;
+    }
+
+    /**
+     * Recomputes the non-piece part of the position key. The en passant file
+     * only counts when a pawn of the team to move could actually capture.
+     * The constructors call this, so it only calls private methods that a
+     * subclass cannot override.
+     */
+    private void refreshStateKey() {
+        int enPassant = findEnPassantTarget(teamTurn);
+        if (enPassant >= 0) {
+            long capturers = Bitboards.PAWN_ATTACKS[Bitboards.colorIndex(opponent(teamTurn))][enPassant]
+                    & board.getPieces(teamTurn, ChessPiece.PieceType.PAWN);
+            if (capturers == 0) {
+                enPassant = -1;
             }
         }
-        return false;
+        stateKey = Zobrist.sideToMove(teamTurn) ^ Zobrist.castling(findCastlingRights()) ^ Zobrist.enPassant(enPassant);
+    }
+
+    private static TeamColor opponent(TeamColor team) {
+        return team == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     @Override
@@ -454,7 +831,7 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurn, board);
+        return 31 * teamTurn.ordinal() + Objects.hashCode(board);
     }
 
     @Override
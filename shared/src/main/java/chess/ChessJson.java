@@ -0,0 +1,311 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gson support for the chess classes, shared by the client and the server
+ * so both sides read and write the same JSON.
+ * <p>
+ * The adapters stream each value without reflection and write a compact
+ * string form:
+ * <ul>
+ *     <li>{@link ChessPosition}: the square in algebraic notation, {@code "e4"}</li>
+ *     <li>{@link ChessMove}: start and end square plus any promotion letter,
+ *     {@code "e7e8q"}</li>
+ *     <li>{@link ChessPiece}: its FEN letter, upper case for white, {@code "N"}</li>
+ *     <li>{@link ChessBoard}: the piece placement field of FEN</li>
+ *     <li>{@link ChessGame}: the full position in FEN (see {@link Fen}). If
+ *     earlier positions still count towards a threefold repetition, the game
+ *     is written as {@code {"fen": "...", "history": ["1f3a...", ...]}}
+ *     instead, with the Zobrist keys of those positions in hex, oldest
+ *     first, so a saved game still ends on the third repetition.</li>
+ * </ul>
+ * Positions, moves and pieces can also be read in the object form Gson
+ * writes by reflection, so messages from clients that do not use these
+ * adapters are still understood.
+ */
+public final class ChessJson {
+
+    private static final String PIECE_LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final Gson GSON = gsonBuilder().create();
+
+    private ChessJson() {
+    }
+
+    /**
+     * @return a new builder with the chess type adapters registered, to which
+     * callers can add their own settings
+     */
+    public static GsonBuilder gsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ChessPosition.class, new PositionAdapter().nullSafe())
+                .registerTypeAdapter(ChessMove.class, new MoveAdapter().nullSafe())
+                .registerTypeAdapter(ChessPiece.class, new PieceAdapter().nullSafe())
+                .registerTypeAdapter(ChessBoard.class, new BoardAdapter().nullSafe())
+                .registerTypeAdapter(ChessGame.class, new GameAdapter().nullSafe());
+    }
+
+    /**
+     * @return a shared Gson instance with the chess type adapters; Gson
+     * instances are thread-safe
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    static final class PositionAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            if (isOnBoard(position)) {
+                out.value(squareName(position));
+            } else {
+                out.beginObject().name("row").value(position.getRow()).name("col").value(position.getColumn()).endObject();
+            }
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String text = in.nextString();
+                if (text.length() != 2) {
+                    throw new JsonParseException("Invalid square: " + text);
+                }
+                return parseSquare(text, 0);
+            }
+            int row = 0;
+            int col = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "row" -> row = in.nextInt();
+                    case "col", "column" -> col = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return ChessPosition.of(row, col);
+        }
+    }
+
+    static final class MoveAdapter extends TypeAdapter<ChessMove> {
+        private final PositionAdapter positions = new PositionAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException {
+            if (!isOnBoard(move.getStartPosition()) || !isOnBoard(move.getEndPosition())) {
+                out.beginObject();
+                out.name("startPosition");
+                positions.write(out, move.getStartPosition());
+                out.name("endPosition");
+                positions.write(out, move.getEndPosition());
+                writePromotion(out, move.getPromotionPiece());
+                out.endObject();
+                return;
+            }
+            String text = squareName(move.getStartPosition()) + squareName(move.getEndPosition());
+            ChessPiece.PieceType promotion = move.getPromotionPiece();
+            out.value(promotion == null ? text : text + PIECE_LETTERS.charAt(promotion.ordinal()));
+        }
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String text = in.nextString();
+                if (text.length() != 4 && text.length() != 5) {
+                    throw new JsonParseException("Invalid move: " + text);
+                }
+                ChessPiece.PieceType promotion = text.length() == 5 ? pieceType(text.charAt(4)) : null;
+                return ChessMove.of(parseSquare(text, 0), parseSquare(text, 2), promotion);
+            }
+            ChessPosition start = null;
+            ChessPosition end = null;
+            ChessPiece.PieceType promotion = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "startPosition" -> start = positions.read(in);
+                    case "endPosition" -> end = positions.read(in);
+                    case "promotionPiece" -> {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            promotion = ChessPiece.PieceType.valueOf(in.nextString());
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (start == null || end == null) {
+                throw new JsonParseException("Move is missing a start or end position");
+            }
+            return ChessMove.of(start, end, promotion);
+        }
+
+        private static void writePromotion(JsonWriter out, ChessPiece.PieceType promotion) throws IOException {
+            if (promotion != null) {
+                out.name("promotionPiece").value(promotion.name());
+            }
+        }
+    }
+
+    static final class PieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.value(String.valueOf(pieceLetter(piece)));
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String text = in.nextString();
+                if (text.length() != 1) {
+                    throw new JsonParseException("Invalid piece: " + text);
+                }
+                char c = text.charAt(0);
+                return ChessPiece.of(Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK,
+                        pieceType(c));
+            }
+            ChessGame.TeamColor color = null;
+            ChessPiece.PieceType type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                    case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (color == null || type == null) {
+                throw new JsonParseException("Piece is missing a color or type");
+            }
+            return ChessPiece.of(color, type);
+        }
+    }
+
+    static final class BoardAdapter extends TypeAdapter<ChessBoard> {
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.value(Fen.format(board));
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            return parse(() -> Fen.parseBoard(in.nextString()));
+        }
+    }
+
+    static final class GameAdapter extends TypeAdapter<ChessGame> {
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            long[] history = game.repetitionKeys();
+            if (history.length == 0) {
+                out.value(Fen.format(game));
+                return;
+            }
+            out.beginObject();
+            out.name("fen").value(Fen.format(game));
+            out.name("history").beginArray();
+            for (long key : history) {
+                out.value(Long.toHexString(key));
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                return parse(() -> Fen.parseGame(in.nextString()));
+            }
+            String fen = null;
+            List<Long> history = new ArrayList<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "fen" -> fen = in.nextString();
+                    case "history" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            history.add(parse(() -> Long.parseUnsignedLong(in.nextString(), 16)));
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (fen == null) {
+                throw new JsonParseException("Game is missing its FEN");
+            }
+            String text = fen;
+            ChessGame game = parse(() -> Fen.parseGame(text));
+            if (history.size() > game.getHalfmoveClock()) {
+                throw new JsonParseException("Game history is longer than its halfmove clock");
+            }
+            if (!history.isEmpty()) {
+                long[] keys = new long[history.size()];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = history.get(i);
+                }
+                game.setRepetitionKeys(keys);
+            }
+            return game;
+        }
+    }
+
+    private interface FenRead<T> {
+        T read() throws IOException;
+    }
+
+    private static <T> T parse(FenRead<T> read) throws IOException {
+        try {
+            return read.read();
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+    }
+
+    private static boolean isOnBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    private static String squareName(ChessPosition position) {
+        return new String(new char[]{(char) ('a' + position.getColumn() - 1), (char) ('0' + position.getRow())});
+    }
+
+    private static ChessPosition parseSquare(String text, int offset) {
+        char file = text.charAt(offset);
+        char rank = text.charAt(offset + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            throw new JsonParseException("Invalid square: " + text.substring(offset, offset + 2));
+        }
+        return ChessPosition.of(rank - '0', file - 'a' + 1);
+    }
+
+    private static char pieceLetter(ChessPiece piece) {
+        char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) {
+        int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+        if (type < 0) {
+            throw new JsonParseException("Unknown piece: " + c);
+        }
+        return TYPES[type];
+    }
+}
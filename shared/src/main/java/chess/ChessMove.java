@@ -7,9 +7,45 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessMove {
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64];
+    /**
+     * Promotions, indexed by start file, file offset + 1, color and promotion type
+     */
+    private static final ChessMove[][][][] PROMOTIONS = new ChessMove[8][3][2][];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                MOVES[from * 64 + to] = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), null);
+            }
+        }
+        ChessPiece.PieceType[] types = ChessPiece.PieceType.values();
+        for (int file = 1; file <= 8; file++) {
+            for (int offset = -1; offset <= 1; offset++) {
+                if (file + offset < 1 || file + offset > 8) {
+                    continue;
+                }
+                for (int color = 0; color < 2; color++) {
+                    int fromRow = color == 0 ? 7 : 2;
+                    int toRow = color == 0 ? 8 : 1;
+                    ChessMove[] promotions = new ChessMove[types.length];
+                    for (ChessPiece.PieceType type : types) {
+                        promotions[type.ordinal()] = new ChessMove(ChessPosition.of(fromRow, file),
+                                ChessPosition.of(toRow, file + offset), type);
+                    }
+                    PROMOTIONS[file - 1][offset + 1][color] = promotions;
+                }
+            }
+        }
+    }
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
+    /**
+     * Cached hash code, computed on first use like {@link String#hashCode}
+     */
+    private transient int hash;
 
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
@@ -18,6 +54,43 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets a shared instance for a move. Every move between two board squares,
+     * and every pawn promotion, is created once and reused; anything else
+     * gets a new object.
+     *
+     * @return a move equal to {@code new ChessMove(startPosition, endPosition, promotionPiece)}
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        int startRow = startPosition.getRow();
+        int startCol = startPosition.getColumn();
+        int endRow = endPosition.getRow();
+        int endCol = endPosition.getColumn();
+        if (startRow < 1 || startRow > 8 || startCol < 1 || startCol > 8
+                || endRow < 1 || endRow > 8 || endCol < 1 || endCol > 8) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of((startRow - 1) * 8 + startCol - 1, (endRow - 1) * 8 + endCol - 1, promotionPiece);
+    }
+
+    /**
+     * Gets a shared instance for a move between two square indexes (see {@link Bitboards})
+     */
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        if (promotionPiece == null) {
+            return MOVES[from * 64 + to];
+        }
+        int fromRow = from / 8 + 1;
+        int toRow = to / 8 + 1;
+        int offset = (to % 8) - (from % 8);
+        int color = fromRow == 7 && toRow == 8 ? 0 : fromRow == 2 && toRow == 1 ? 1 : -1;
+        if (color < 0 || offset < -1 || offset > 1) {
+            return new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotionPiece);
+        }
+        return PROMOTIONS[from % 8][offset + 1][color][promotionPiece.ordinal()];
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -59,7 +132,13 @@ public class ChessMove {
 
     @Override
     public int hashCode(){
-        return Objects.hash(startPosition, endPosition,promotionPiece);
+        int h = hash;
+        if (h == 0) {
+            h = 31 * Objects.hashCode(startPosition) + Objects.hashCode(endPosition);
+            h = 31 * h + (promotionPiece == null ? 0 : promotionPiece.ordinal() + 1);
+            hash = h;
+        }
+        return h;
     }
     @Override
     public String toString(){
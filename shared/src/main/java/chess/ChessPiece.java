@@ -1,8 +1,6 @@
 package chess;
 
 import java.util.Collection;
-import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -15,11 +13,45 @@ public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
+    /**
+     * The most moves a single piece can have: a queen in the middle of an open board
+     */
+    private static final int MAX_PIECE_MOVES = 27;
+
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a color and type. Pieces are immutable, so
+     * the twelve kinds are created once and every board can reference them.
+     *
+     * @param pieceColor the team the piece belongs to
+     * @param type       the kind of piece
+     * @return the shared piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * Gets the shared instance for a piece index (see {@link Bitboards#pieceIndex})
+     */
+    static ChessPiece of(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -54,191 +86,26 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        if (type == PieceType.KING){
-            return kingMoves(board,myPosition);
-        }else if (type == PieceType.QUEEN){
-            return queenMoves(board, myPosition);
-        }else if (type == PieceType.BISHOP){
-            return bishopMoves(board, myPosition);
-        }else if (type == PieceType.KNIGHT){
-            return knightMoves(board, myPosition);
-        }else if (type == PieceType.ROOK){
-            return rookMoves(board, myPosition);
-        }else if (type == PieceType.PAWN){
-            return pawnMoves(board, myPosition);
-        }
-        return new ArrayList<>();
-    }
-
-    private boolean isInBounds(int row, int col){
-        if (row <1 || row >8){
-            return false;
-        }
-        if (col <1 || col >8){
-            return  false;
-        }
-        return true;
-    }
-
-    private void addSlidingMoves(ChessBoard board, ChessPosition myPosition, int rowDir, int colDir, Collection<ChessMove> moves){
-        int row = myPosition.getRow() + rowDir;
-        int col = myPosition.getColumn() + colDir;
-        while (isInBounds(row,col)){
-            ChessPosition newPos = new ChessPosition(row, col);
-            ChessPiece target = board.getPiece(newPos);
-            if (target == null){
-                moves.add(new ChessMove(myPosition, newPos,null));
-            }else{
-                if(target.getTeamColor() != pieceColor){
-                    moves.add(new ChessMove(myPosition, newPos, null));
-                }
-                break;
-            }
-            row = row + rowDir;
-            col = col + colDir;
-        }
+        int[] buffer = new int[MAX_PIECE_MOVES];
+        int count = pieceMoves(board, Bitboards.square(myPosition), buffer, 0);
+        return PackedMove.toChessMoves(buffer, count);
     }
-    private void addSingleMoves(ChessBoard board, ChessPosition myPosition, int newRow, int newCol, Collection<ChessMove> moves){
-        if (!isInBounds(newRow, newCol)) {
-            return;
-        }
-        ChessPosition newPos = new ChessPosition(newRow, newCol);
-        ChessPiece target = board.getPiece(newPos);
-
-        if (target == null) {
-            moves.add(new ChessMove(myPosition, newPos, null));
-        }else if (target.getTeamColor() != pieceColor) {
-            moves.add(new ChessMove(myPosition, newPos, null));
-        }
-    }
-    private Collection<ChessMove>kingMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        addSingleMoves(board, myPosition, row + 1, col, moves);
-        addSingleMoves(board, myPosition, row - 1, col, moves);
-        addSingleMoves(board, myPosition, row, col + 1, moves);
-        addSingleMoves(board, myPosition, row, col - 1, moves);
-        addSingleMoves(board, myPosition, row + 1, col + 1, moves);
-        addSingleMoves(board, myPosition, row + 1, col - 1, moves);
-        addSingleMoves(board, myPosition, row - 1, col + 1, moves);
-        addSingleMoves(board, myPosition, row - 1, col - 1, moves);
-        return moves;
-    }
-    private Collection<ChessMove>queenMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        addSlidingMoves(board, myPosition, 1, 0, moves);
-        addSlidingMoves(board, myPosition, -1, 0, moves);
-        addSlidingMoves(board, myPosition, 0, 1, moves);
-        addSlidingMoves(board, myPosition, 0, -1, moves);
-        addSlidingMoves(board, myPosition, 1, 1, moves);
-        addSlidingMoves(board, myPosition, 1, -1, moves);
-        addSlidingMoves(board, myPosition, -1, 1, moves);
-        addSlidingMoves(board, myPosition, -1, -1, moves);
-        return moves;
-    }
-    private Collection<ChessMove>bishopMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        addSlidingMoves(board, myPosition, 1, 1, moves);
-        addSlidingMoves(board, myPosition, 1, -1, moves);
-        addSlidingMoves(board, myPosition, -1, 1, moves);
-        addSlidingMoves(board, myPosition, -1, -1, moves);
-
-        return moves;
-    }
-    private Collection<ChessMove>rookMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        addSlidingMoves(board, myPosition, 1, 0, moves);
-        addSlidingMoves(board, myPosition, -1, 0, moves);
-        addSlidingMoves(board, myPosition, 0, 1, moves);
-        addSlidingMoves(board, myPosition, 0, -1, moves);
-
-        return moves;
-    }
-    private Collection<ChessMove>knightMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
 
-        addSingleMoves(board, myPosition, row + 2, col +1, moves);
-        addSingleMoves(board, myPosition, row + 2, col -1, moves);
-        addSingleMoves(board, myPosition, row-2, col + 1, moves);
-        addSingleMoves(board, myPosition, row-2, col - 1, moves);
-        addSingleMoves(board, myPosition, row + 1, col + 2, moves);
-        addSingleMoves(board, myPosition, row + 1, col - 2, moves);
-        addSingleMoves(board, myPosition, row - 1, col + 2, moves);
-        addSingleMoves(board, myPosition, row - 1, col - 2, moves);
-        return moves;
+    /**
+     * Writes the moves this piece could make from a square into a buffer as
+     * {@link PackedMove} ints, with the same rules as
+     * {@link #pieceMoves(ChessBoard, ChessPosition)}
+     *
+     * @param board  the board the piece is on
+     * @param square the square index of the piece (see {@link Bitboards})
+     * @param buffer the move buffer
+     * @param count  the number of moves already in the buffer
+     * @return the number of moves in the buffer afterwards
+     */
+    int pieceMoves(ChessBoard board, int square, int[] buffer, int count) {
+        return MoveGenerator.pseudoLegal(board, pieceColor).generate(square, type, buffer, count);
     }
-    private Collection<ChessMove>pawnMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        int direction;
-        int startRow;
-        int promotionRow;
 
-        if (pieceColor == ChessGame.TeamColor.WHITE) {
-            direction = 1;
-            startRow = 2;
-            promotionRow = 8;
-        }else{
-            direction = -1;
-            startRow = 7;
-            promotionRow = 1;
-        }
-        int oneStepRow = row + direction;
-        if (isInBounds(oneStepRow, col)) {
-            ChessPosition oneStepPos = new ChessPosition(oneStepRow, col);
-            if (board.getPiece(oneStepPos) == null) {
-                addPawnMove(myPosition, oneStepPos, promotionRow, moves);
-                if (row == startRow) {
-                    int twoStepRow = row + 2 * direction;
-                    ChessPosition twoStepPos = new ChessPosition(twoStepRow, col);
-                    if (board.getPiece(twoStepPos) == null) {
-                        moves.add(new ChessMove(myPosition, twoStepPos, null));
-                    }
-                }
-            }
-        }
-        int leftCol = col -1;
-        if (isInBounds(oneStepRow, leftCol)){
-            ChessPosition leftDiag = new ChessPosition(oneStepRow, leftCol);
-            ChessPiece leftTarget = board.getPiece(leftDiag);
-            if (leftTarget != null && leftTarget.getTeamColor() != pieceColor){
-                addPawnMove(myPosition, leftDiag, promotionRow, moves);
-            }
-        }
-        int rightCol = col +1;
-        if (isInBounds(oneStepRow, rightCol)) {
-            ChessPosition rightDiag = new ChessPosition(oneStepRow, rightCol);
-            ChessPiece rightTarget = board.getPiece(rightDiag);
-            if (rightTarget != null && rightTarget.getTeamColor() != pieceColor) {
-                addPawnMove(myPosition, rightDiag, promotionRow, moves);
-            }
-        }
-        return moves;
-    }
-    private void addPawnMove(ChessPosition start, ChessPosition end, int promotionRow, Collection<ChessMove> moves){
-        if (end.getRow() == promotionRow) {
-            moves.add(new ChessMove(start, end, PieceType.QUEEN));
-            moves.add(new ChessMove(start, end, PieceType.ROOK));
-            moves.add(new ChessMove(start, end, PieceType.KNIGHT));
-            moves.add(new ChessMove(start, end, PieceType.BISHOP));
-        }else{
-            moves.add(new ChessMove(start, end, null));
-        }
-    }
     @Override
     public boolean equals(Object o){
         if (this == o){
@@ -255,7 +122,7 @@ public class ChessPiece {
     }
     @Override
     public int hashCode(){
-        return Objects.hash(pieceColor,type);
+        return 31 * pieceColor.ordinal() + type.ordinal();
     }
     @Override
     public String toString(){
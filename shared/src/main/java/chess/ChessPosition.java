@@ -1,5 +1,4 @@
 package chess;
-import java.util.Objects;
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -8,6 +7,14 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
     public ChessPosition(int row, int col) {
@@ -15,6 +22,28 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a square. Positions are immutable, so the
+     * 64 on-board squares are created once and reused.
+     *
+     * @param row the row, 1 through 8
+     * @param col the column, 1 through 8
+     * @return the cached position, or a new one if the square is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * Gets the shared instance for a square index (see {@link Bitboards})
+     */
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -47,7 +76,7 @@ public class ChessPosition {
     }
     @Override
     public int hashCode(){
-        return Objects.hash(row,col);
+        return 31 * row + col;
     }
     @Override
     public String toString(){
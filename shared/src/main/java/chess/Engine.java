@@ -0,0 +1,486 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A computer opponent: finds a good move for the team to move in a
+ * {@link ChessGame}.
+ * <p>
+ * The search is a negamax alpha-beta search with iterative deepening. Each
+ * iteration goes one ply deeper and tries the previous iteration's best move
+ * first. Captures are ordered most valuable victim first, and quiet moves
+ * that caused cutoffs elsewhere come next (killer and history heuristics).
+ * Late quiet moves are searched with a null window and one ply less, and
+ * searched again in full only if they turn out better. When the depth runs
+ * out, a quiescence search keeps resolving captures until the position is
+ * quiet, so a half-finished exchange is never scored. Positions in check are
+ * searched one ply deeper.
+ * <p>
+ * The search works on its own copy of the game and checks its budget as it
+ * goes. When the budget runs out it answers with the best move of the
+ * deepest iteration, or of a partly finished iteration if that already found
+ * a better move.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, which gives the best
+ * move to try first in a position seen before and ends the search of a
+ * position early when a deep enough result is already known. Engines can
+ * share one table across threads and games. An engine itself keeps
+ * move-ordering state and a {@link PawnCache} between searches and is not
+ * thread-safe: use one engine per thread, or a {@link ParallelSearch} to
+ * search one position on several threads.
+ */
+public final class Engine {
+
+    /**
+     * Score of delivering mate right now; mate in n plies scores
+     * {@code MATE - n}
+     */
+    public static final int MATE = 30000;
+
+    /**
+     * The deepest the search goes below the root, quiescence included
+     */
+    public static final int MAX_PLY = 128;
+
+    /**
+     * Size of the table an engine creates for itself
+     */
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private static final int INFINITY = 32000;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private static final int HASH_MOVE_SCORE = 2_000_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int KILLER_SCORE = 900_000;
+    private static final int MAX_HISTORY = 800_000;
+
+    private final int[][] moveBuffers = new int[MAX_PLY][PackedMove.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][PackedMove.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[] history = new int[12 * 64];
+    private final TranspositionTable table;
+    private final PawnCache pawnCache = new PawnCache(PawnCache.DEFAULT_ENTRIES);
+    private final AtomicBoolean stopSignal;
+    private final boolean sharedSignal;
+    private final int helper;
+
+    private ChessGame game;
+    private ChessBoard board;
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean stopped;
+
+    /**
+     * Creates an engine with a table of its own
+     */
+    public Engine() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * @param table the table to keep results in, which other engines may share
+     */
+    public Engine(TranspositionTable table) {
+        this(table, null, 0);
+    }
+
+    /**
+     * Creates an engine for a {@link ParallelSearch}. Its searches neither
+     * clear the stop signal nor start a new table generation; the parallel
+     * search does both once for all its engines.
+     *
+     * @param stopSignal the signal all engines of the search stop on, or null
+     *                   for a signal of the engine's own
+     * @param helper     0 for the main engine; helpers start their iterative
+     *                   deepening at different depths so they do not all
+     *                   search the same tree in step
+     */
+    Engine(TranspositionTable table, AtomicBoolean stopSignal, int helper) {
+        if (table == null) {
+            throw new IllegalArgumentException("Transposition table must not be null");
+        }
+        this.table = table;
+        this.sharedSignal = stopSignal != null;
+        this.stopSignal = sharedSignal ? stopSignal : new AtomicBoolean();
+        this.helper = helper;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * @return the engine's own cache of pawn structure scores
+     */
+    public PawnCache getPawnCache() {
+        return pawnCache;
+    }
+
+    /**
+     * Searches for the best move of the team to move. The game itself is not
+     * changed.
+     *
+     * @param position the game to find a move in
+     * @param limits   how deep and how long to search
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        long start = System.nanoTime();
+        game = new ChessGame(position);
+        board = game.getBoard();
+        nodes = 0;
+        maxNodes = limits.getMaxNodes();
+        deadline = limits.getMaxMillis() == Long.MAX_VALUE
+                ? Long.MAX_VALUE : start + limits.getMaxMillis() * 1_000_000L;
+        stopped = false;
+        if (!sharedSignal) {
+            stopSignal.set(false);
+            table.newSearch();
+        }
+        for (int[] pair : killers) {
+            Arrays.fill(pair, 0);
+        }
+        for (int i = 0; i < history.length; i++) {
+            history[i] /= 8;
+        }
+
+        int[] rootMoves = moveBuffers[0];
+        int count = game.validMoves(rootMoves);
+        if (count == 0) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return finish(0, score, 0, start);
+        }
+
+        long rootKey = game.getZobristKey();
+        int bestMove = rootMoves[0];
+        int hashMove = TranspositionTable.move(table.probe(rootKey));
+        for (int i = 0; i < count; i++) {
+            if (hashMove != 0 && PackedMove.sameMove(rootMoves[i], hashMove)) {
+                bestMove = rootMoves[i];
+            }
+        }
+        int bestScore = -INFINITY;
+        int completedDepth = 0;
+        for (int depth = Math.min(1 + (helper & 1), limits.getMaxDepth()); depth <= limits.getMaxDepth(); depth++) {
+            int iterationBest = 0;
+            int iterationScore = -INFINITY;
+            int alpha = -INFINITY;
+            scoreMoves(rootMoves, count, 0, bestMove);
+            for (int i = 0; i < count; i++) {
+                int move = pickMove(rootMoves, moveScores[0], i, count);
+                game.applyMove(move);
+                int score;
+                if (i == 0) {
+                    score = -search(depth - 1, -INFINITY, -alpha, 1);
+                } else {
+                    score = -search(depth - 1, -alpha - 1, -alpha, 1);
+                    if (score > alpha && !stopped) {
+                        score = -search(depth - 1, -INFINITY, -alpha, 1);
+                    }
+                }
+                game.undoMove();
+                if (stopped) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                    iterationScore = score;
+                }
+            }
+
+            if (iterationBest != 0 && (!stopped || iterationScore > bestScore)) {
+                bestMove = iterationBest;
+                bestScore = iterationScore;
+            }
+            if (stopped) {
+                break;
+            }
+            completedDepth = depth;
+            table.store(rootKey, depth, TranspositionTable.EXACT, bestScore, bestMove);
+            if (Math.abs(bestScore) >= MATE - depth) {
+                // a forced mate within the searched depth cannot get any shorter
+                break;
+            }
+        }
+        return finish(bestMove, bestScore, completedDepth, start);
+    }
+
+    /**
+     * Scores a position without searching it: material, piece placement and
+     * pawn structure
+     *
+     * @return the score in centipawns, positive if the team to move is better
+     */
+    public static int evaluate(ChessGame game) {
+        return Evaluation.evaluate(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can. The search still
+     * returns its best move so far.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    private SearchResult finish(int bestMove, int score, int depth, long start) {
+        ChessMove move = bestMove == 0 ? null : PackedMove.toChessMove(bestMove);
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        game = null;
+        board = null;
+        return new SearchResult(move, score, depth, nodes, millis);
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        if (outOfBudget()) {
+            return 0;
+        }
+        if (isDraw()) {
+            return 0;
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(alpha, beta, ply);
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(board, game.getTeamTurn(), pawnCache);
+        }
+
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            // only null-window searches take cutoffs, so exact scores still
+            // come with a searched line
+            if (beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = game.validMoves(moves);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, count, ply, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, moveScores[ply], i, count);
+            boolean quiet = isQuiet(move);
+            game.applyMove(move);
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                int reduction = depth >= 3 && i >= 4 && quiet && !inCheck ? 1 : 0;
+                score = -search(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && (reduction > 0 || score < beta) && !stopped) {
+                    score = -search(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    if (alpha >= beta) {
+                        if (quiet) {
+                            rememberCutoff(move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, depth, bound, toTable(best, ply), bestMove != 0 ? bestMove : hashMove);
+        return best;
+    }
+
+    /**
+     * Mate scores count plies from the root; the table stores them counted
+     * from the position itself, so they stay right when the position is
+     * reached at another ply
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        return score <= -MATE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        return score <= -MATE + MAX_PLY ? score + ply : score;
+    }
+
+    /**
+     * Searches only captures and promotions, letting the team to move stand
+     * pat on the static evaluation when that is already good enough
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+        if (outOfBudget()) {
+            return 0;
+        }
+        int standPat = Evaluation.evaluate(board, game.getTeamTurn(), pawnCache);
+        if (standPat >= beta || ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = game.validMoves(moves);
+        int tactical = 0;
+        for (int i = 0; i < count; i++) {
+            if (!isQuiet(moves[i])) {
+                moves[tactical++] = moves[i];
+            }
+        }
+        scoreMoves(moves, tactical, ply, 0);
+
+        for (int i = 0; i < tactical; i++) {
+            int move = pickMove(moves, moveScores[ply], i, tactical);
+            game.applyMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and checks the node, time and stop budgets
+     *
+     * @return True if the search has to stop
+     */
+    private boolean outOfBudget() {
+        if (stopped) {
+            return true;
+        }
+        nodes++;
+        if (nodes >= maxNodes || stopSignal.get()
+                || ((nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * A position inside the search counts as drawn as soon as it repeats
+     * once, since the side that could avoid the repetition would have
+     */
+    private boolean isDraw() {
+        return game.getHalfmoveClock() >= 100 || game.isInsufficientMaterial() || game.getRepetitionCount() >= 2;
+    }
+
+    private static boolean isQuiet(int move) {
+        return !PackedMove.hasFlag(move, PackedMove.CAPTURE | PackedMove.EN_PASSANT)
+                && PackedMove.promotion(move) == null;
+    }
+
+    /**
+     * Gives every move an ordering score: the hash move first, then captures
+     * and promotions by the value of what they win, then killer moves, then
+     * quiet moves by their history
+     */
+    private void scoreMoves(int[] moves, int count, int ply, int hashMove) {
+        int[] scores = moveScores[ply];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            ChessPiece mover = board.getPiece(from);
+            int score;
+            if (hashMove != 0 && PackedMove.sameMove(move, hashMove)) {
+                score = HASH_MOVE_SCORE;
+            } else if (!isQuiet(move)) {
+                ChessPiece victim = board.getPiece(to);
+                int gain = victim == null ? 0 : Evaluation.MIDDLEGAME_VALUE[victim.getPieceType().ordinal()];
+                if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+                    gain = Evaluation.MIDDLEGAME_VALUE[ChessPiece.PieceType.PAWN.ordinal()];
+                }
+                ChessPiece.PieceType promotion = PackedMove.promotion(move);
+                if (promotion != null) {
+                    gain += Evaluation.MIDDLEGAME_VALUE[promotion.ordinal()];
+                }
+                score = CAPTURE_SCORE + gain * 8 - Evaluation.MIDDLEGAME_VALUE[mover.getPieceType().ordinal()] / 8;
+            } else if (move == plyKillers[0] || move == plyKillers[1]) {
+                score = move == plyKillers[0] ? KILLER_SCORE + 1 : KILLER_SCORE;
+            } else {
+                score = history[historyIndex(mover, to)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best scored of the remaining moves to position {@code index},
+     * so moves are sorted only as far as the search gets before a cutoff
+     */
+    private static int pickMove(int[] moves, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private void rememberCutoff(int move, int depth, int ply) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int index = historyIndex(board.getPiece(PackedMove.from(move)), PackedMove.to(move));
+        history[index] = Math.min(history[index] + depth * depth, MAX_HISTORY);
+    }
+
+    private static int historyIndex(ChessPiece piece, int to) {
+        return Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType()) * 64 + to;
+    }
+}
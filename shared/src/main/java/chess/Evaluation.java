@@ -0,0 +1,273 @@
+package chess;
+
+/**
+ * Static evaluation of a position for the search: material plus
+ * piece-square bonuses, each with a middlegame and an endgame value that are
+ * blended by how much material is left ("tapered" evaluation).
+ * <p>
+ * Scores are in centipawns from white's point of view. The piece-square
+ * tables are written the way a board is drawn, row 8 at the top, for white;
+ * black uses them mirrored. {@link ChessBoard} adds and subtracts each
+ * piece's table entries as pieces come and go, so evaluating a position
+ * only blends the two running sums.
+ * <p>
+ * On top of that come pawn structure terms: doubled and isolated pawns cost
+ * points and passed pawns earn more the further they have advanced. They
+ * depend on the pawns alone, so the search looks them up by the board's pawn
+ * key in a {@link PawnCache}.
+ */
+final class Evaluation {
+
+    /**
+     * Middlegame and endgame values of each piece type, indexed by
+     * {@code PieceType.ordinal()}; the king's material is never counted
+     */
+    static final int[] MIDDLEGAME_VALUE = {0, 1025, 365, 337, 477, 82};
+    static final int[] ENDGAME_VALUE = {0, 936, 297, 281, 512, 94};
+
+    /**
+     * How much each piece type counts towards the game phase; a full board
+     * adds up to {@link #MAX_PHASE}
+     */
+    static final int[] PHASE_WEIGHT = {0, 4, 1, 1, 2, 0};
+    static final int MAX_PHASE = 24;
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+
+    /**
+     * Passed pawn bonuses by how many rows the pawn has advanced from its
+     * own back row
+     */
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 100, 150, 0};
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long[] ADJACENT_FILES = new long[8];
+
+    /**
+     * The squares in front of a pawn, on its own and the neighbouring files,
+     * that an enemy pawn must be on to stop it being passed; indexed by color
+     * then square
+     */
+    private static final long[][] PASSED_SPAN = new long[2][64];
+
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /**
+     * Middlegame and endgame score of each piece on each square, material
+     * included, indexed by piece index (see {@link Bitboards#pieceIndex})
+     * then square. Black's entries are negative.
+     */
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        int[][] middlegameTables = {KING_MIDDLEGAME, QUEEN_TABLE, BISHOP_TABLE, KNIGHT_TABLE, ROOK_TABLE, PAWN_MIDDLEGAME};
+        int[][] endgameTables = {KING_ENDGAME, QUEEN_TABLE, BISHOP_TABLE, KNIGHT_TABLE, ROOK_TABLE, PAWN_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < 64; square++) {
+                // the tables list row 8 first, so white reads them flipped vertically
+                int whiteEntry = square ^ 56;
+                MIDDLEGAME[Bitboards.WHITE * 6 + type][square] = MIDDLEGAME_VALUE[type] + middlegameTables[type][whiteEntry];
+                ENDGAME[Bitboards.WHITE * 6 + type][square] = ENDGAME_VALUE[type] + endgameTables[type][whiteEntry];
+                MIDDLEGAME[Bitboards.BLACK * 6 + type][square] = -(MIDDLEGAME_VALUE[type] + middlegameTables[type][square]);
+                ENDGAME[Bitboards.BLACK * 6 + type][square] = -(ENDGAME_VALUE[type] + endgameTables[type][square]);
+            }
+        }
+
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? FILE_A << (col - 1) : 0) | (col < 7 ? FILE_A << (col + 1) : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int col = square & 7;
+            long files = ADJACENT_FILES[col] | FILE_A << col;
+            int row = square >>> 3;
+            long above = row == 7 ? 0 : -1L << ((row + 1) * 8);
+            long below = row == 0 ? 0 : -1L >>> ((8 - row) * 8);
+            PASSED_SPAN[Bitboards.WHITE][square] = files & above;
+            PASSED_SPAN[Bitboards.BLACK][square] = files & below;
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the middlegame score of a piece on a square, negative for black
+     */
+    static int middlegame(int pieceIndex, int square) {
+        return MIDDLEGAME[pieceIndex][square];
+    }
+
+    /**
+     * @return the endgame score of a piece on a square, negative for black
+     */
+    static int endgame(int pieceIndex, int square) {
+        return ENDGAME[pieceIndex][square];
+    }
+
+    /**
+     * Scores a position for the team to move, working out the pawn structure
+     * from scratch
+     *
+     * @return the score in centipawns, positive if the team to move is better
+     */
+    static int evaluate(ChessBoard board, ChessGame.TeamColor toMove) {
+        return evaluate(board, toMove, pawnStructure(board));
+    }
+
+    /**
+     * Scores a position for the team to move, looking up the pawn structure
+     * in a cache
+     *
+     * @return the score in centipawns, positive if the team to move is better
+     */
+    static int evaluate(ChessBoard board, ChessGame.TeamColor toMove, PawnCache pawns) {
+        return evaluate(board, toMove, pawns.get(board));
+    }
+
+    private static int evaluate(ChessBoard board, ChessGame.TeamColor toMove, long pawnStructure) {
+        int score = taper(board.getMiddlegameScore() + middlegameOf(pawnStructure),
+                board.getEndgameScore() + endgameOf(pawnStructure), board.getPhase());
+        return toMove == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Scores the doubled, isolated and passed pawns on a board, from white's
+     * point of view
+     *
+     * @return the middlegame score in the high 32 bits and the endgame score
+     * in the low 32; read them with {@link #middlegameOf} and {@link #endgameOf}
+     */
+    static long pawnStructure(ChessBoard board) {
+        long white = board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        int middlegame = 0;
+        int endgame = 0;
+        for (int color = Bitboards.WHITE; color <= Bitboards.BLACK; color++) {
+            long own = color == Bitboards.WHITE ? white : black;
+            long enemy = color == Bitboards.WHITE ? black : white;
+            int sign = color == Bitboards.WHITE ? 1 : -1;
+            for (int col = 0; col < 8; col++) {
+                int count = Long.bitCount(own & FILE_A << col);
+                if (count > 1) {
+                    middlegame += sign * DOUBLED_MIDDLEGAME * (count - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (count - 1);
+                }
+                if (count > 0 && (own & ADJACENT_FILES[col]) == 0) {
+                    middlegame += sign * ISOLATED_MIDDLEGAME * count;
+                    endgame += sign * ISOLATED_ENDGAME * count;
+                }
+            }
+            long pawns = own;
+            while (pawns != 0) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                if ((PASSED_SPAN[color][square] & enemy) == 0) {
+                    int advanced = color == Bitboards.WHITE ? square >>> 3 : 7 - (square >>> 3);
+                    middlegame += sign * PASSED_MIDDLEGAME[advanced];
+                    endgame += sign * PASSED_ENDGAME[advanced];
+                }
+                pawns &= pawns - 1;
+            }
+        }
+        return (long) middlegame << 32 | (endgame & 0xFFFFFFFFL);
+    }
+
+    static int middlegameOf(long pawnStructure) {
+        return (int) (pawnStructure >> 32);
+    }
+
+    static int endgameOf(long pawnStructure) {
+        return (int) pawnStructure;
+    }
+
+    /**
+     * Blends a middlegame and endgame score by the game phase
+     */
+    static int taper(int middlegame, int endgame, int phase) {
+        int clamped = Math.min(phase, MAX_PHASE);
+        return (middlegame * clamped + endgame * (MAX_PHASE - clamped)) / MAX_PHASE;
+    }
+}
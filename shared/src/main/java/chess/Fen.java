@@ -0,0 +1,327 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation (FEN), for example
+ * {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}.
+ * <p>
+ * The six fields are the pieces from row 8 down to row 1, the team to move,
+ * the castling rights, the en passant target square, the halfmove clock and
+ * the fullmove number. The two clocks may be left out and default to 0 and
+ * 1. The parser reads the text in place, one character at a time, without
+ * splitting it into strings first.
+ */
+public final class Fen {
+
+    /**
+     * The standard starting position
+     */
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Fen() {
+    }
+
+    /**
+     * Sets up a game from a FEN string. The game starts with no moves to undo
+     * and a fresh position history.
+     *
+     * @param fen the position in FEN
+     * @return the game
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessGame parseGame(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        Parser parser = new Parser(fen);
+        parser.skipSpaces();
+        parser.readPlacement(board);
+
+        parser.expectSpace();
+        ChessGame.TeamColor turn = switch (parser.next()) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw parser.error("expected w or b for the team to move");
+        };
+
+        parser.expectSpace();
+        int castling = parser.readCastling();
+        parser.expectSpace();
+        int enPassant = parser.readEnPassant(board, turn);
+
+        int halfmove = 0;
+        int fullmove = 1;
+        if (!parser.onlySpacesLeft()) {
+            parser.expectSpace();
+            halfmove = parser.readNumber();
+            parser.expectSpace();
+            fullmove = parser.readNumber();
+        }
+        parser.expectEnd();
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setPosition(turn, castling, enPassant, halfmove, Math.max(fullmove, 1));
+        return game;
+    }
+
+    /**
+     * Sets up a board from the piece placement field of a FEN string. Text
+     * after the placement field, if any, is ignored.
+     *
+     * @param fen the position in FEN, or just its first field
+     * @return the board
+     * @throws IllegalArgumentException if the placement is not valid FEN
+     */
+    public static ChessBoard parseBoard(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        Parser parser = new Parser(fen);
+        parser.skipSpaces();
+        parser.readPlacement(board);
+        return board;
+    }
+
+    /**
+     * Writes a game's position as FEN. The en passant square is written
+     * whenever the last move was a two-square pawn advance.
+     *
+     * @return the FEN string
+     */
+    public static String format(ChessGame game) {
+        StringBuilder sb = new StringBuilder(90);
+        appendPlacement(sb, game.getBoard());
+        sb.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int rights = game.castlingRights();
+        if (rights == 0) {
+            sb.append('-');
+        } else {
+            appendIf(sb, rights, Zobrist.WHITE_KINGSIDE, 'K');
+            appendIf(sb, rights, Zobrist.WHITE_QUEENSIDE, 'Q');
+            appendIf(sb, rights, Zobrist.BLACK_KINGSIDE, 'k');
+            appendIf(sb, rights, Zobrist.BLACK_QUEENSIDE, 'q');
+        }
+
+        int enPassant = game.enPassantTarget(game.getTeamTurn());
+        sb.append(' ');
+        if (enPassant < 0) {
+            sb.append('-');
+        } else {
+            sb.append((char) ('a' + Bitboards.columnOf(enPassant) - 1)).append(Bitboards.rowOf(enPassant));
+        }
+
+        sb.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+        return sb.toString();
+    }
+
+    /**
+     * Writes the piece placement field for a board
+     *
+     * @return the first field of a FEN string
+     */
+    public static String format(ChessBoard board) {
+        StringBuilder sb = new StringBuilder(64);
+        appendPlacement(sb, board);
+        return sb.toString();
+    }
+
+    private static void appendPlacement(StringBuilder sb, ChessBoard board) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+                sb.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row > 1) {
+                sb.append('/');
+            }
+        }
+    }
+
+    private static void appendIf(StringBuilder sb, int rights, int right, char letter) {
+        if ((rights & right) != 0) {
+            sb.append(letter);
+        }
+    }
+
+    /**
+     * Walks over the text with an index, reporting errors with the offending
+     * position
+     */
+    private static final class Parser {
+        private final CharSequence text;
+        private int index;
+
+        Parser(CharSequence text) {
+            this.text = text;
+        }
+
+        void readPlacement(ChessBoard board) {
+            int row = 8;
+            int col = 1;
+            while (true) {
+                char c = next();
+                if (c == ' ') {
+                    index--;
+                    throw error("row " + row + " does not have 8 squares");
+                }
+                if (c == '/') {
+                    if (col != 9 || row == 1) {
+                        throw error("row " + row + " does not have 8 squares");
+                    }
+                    row--;
+                    col = 1;
+                } else if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                    if (col > 9) {
+                        throw error("row " + row + " has more than 8 squares");
+                    }
+                } else {
+                    int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                    if (type < 0) {
+                        throw error("unknown piece '" + c + "'");
+                    }
+                    if (col > 8) {
+                        throw error("row " + row + " has more than 8 squares");
+                    }
+                    ChessGame.TeamColor color = Character.isUpperCase(c)
+                            ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                    board.addPiece(Bitboards.square(row, col), ChessPiece.of(color, TYPES[type]));
+                    col++;
+                }
+                if (row == 1 && col == 9) {
+                    return;
+                }
+            }
+        }
+
+        int readCastling() {
+            if (peek() == '-') {
+                index++;
+                return 0;
+            }
+            int rights = 0;
+            while (!atEnd() && peek() != ' ') {
+                int right = switch (next()) {
+                    case 'K' -> Zobrist.WHITE_KINGSIDE;
+                    case 'Q' -> Zobrist.WHITE_QUEENSIDE;
+                    case 'k' -> Zobrist.BLACK_KINGSIDE;
+                    case 'q' -> Zobrist.BLACK_QUEENSIDE;
+                    default -> throw error("expected castling rights KQkq or -");
+                };
+                if ((rights & right) != 0) {
+                    throw error("repeated castling right");
+                }
+                rights |= right;
+            }
+            if (rights == 0) {
+                throw error("expected castling rights KQkq or -");
+            }
+            return rights;
+        }
+
+        /**
+         * @return the en passant target square, or -1 for none
+         */
+        int readEnPassant(ChessBoard board, ChessGame.TeamColor turn) {
+            if (peek() == '-') {
+                index++;
+                return -1;
+            }
+            char file = next();
+            char rank = next();
+            int expectedRow = turn == ChessGame.TeamColor.WHITE ? 6 : 3;
+            if (file < 'a' || file > 'h' || rank - '0' != expectedRow) {
+                index -= 2;
+                throw error("expected an en passant square on row " + expectedRow + " or -");
+            }
+            int col = file - 'a' + 1;
+            int pawnRow = turn == ChessGame.TeamColor.WHITE ? 5 : 4;
+            ChessGame.TeamColor pawnColor = turn == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            if ((board.getPieces(pawnColor, ChessPiece.PieceType.PAWN) & Bitboards.bit(Bitboards.square(pawnRow, col))) == 0) {
+                index -= 2;
+                throw error("no pawn in front of the en passant square");
+            }
+            return Bitboards.square(expectedRow, col);
+        }
+
+        int readNumber() {
+            int start = index;
+            int value = 0;
+            while (!atEnd() && peek() >= '0' && peek() <= '9') {
+                value = value * 10 + (next() - '0');
+                if (value > 0xFFFF) {
+                    throw error("number too large");
+                }
+            }
+            if (index == start) {
+                throw error("expected a number");
+            }
+            return value;
+        }
+
+        void expectSpace() {
+            if (next() != ' ') {
+                index--;
+                throw error("expected a space");
+            }
+            skipSpaces();
+        }
+
+        void skipSpaces() {
+            while (!atEnd() && Character.isWhitespace(text.charAt(index))) {
+                index++;
+            }
+        }
+
+        boolean onlySpacesLeft() {
+            for (int i = index; i < text.length(); i++) {
+                if (!Character.isWhitespace(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void expectEnd() {
+            skipSpaces();
+            if (!atEnd()) {
+                throw error("unexpected text after the position");
+            }
+        }
+
+        boolean atEnd() {
+            return index >= text.length();
+        }
+
+        char peek() {
+            if (atEnd()) {
+                throw error("unexpected end of text");
+            }
+            return text.charAt(index);
+        }
+
+        char next() {
+            char c = peek();
+            index++;
+            return c;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid FEN at index " + index + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A compact copy of a game's full state, for keeping a history
+ * of positions cheaply (replays, crash recovery) and turning any of them
+ * back into a playable {@link ChessGame}.
+ * <p>
+ * The state lives in one array of longs. The first four hold the board as
+ * 64 four-bit square codes, 0 for an empty square or 1 plus the piece index
+ * (see {@link Bitboards#pieceIndex}). The fifth holds the team to move, the
+ * castling flags, both move clocks, and the last move and piece that made
+ * it, which en passant depends on. Any further longs are the keys of the
+ * earlier positions the current one can still repeat, so a restored game
+ * keeps counting towards a threefold repetition; a game with no such
+ * history fits in the first five. Copying a snapshot is a single array
+ * clone.
+ */
+public final class GameSnapshot {
+
+    private static final int BOARD_WORDS = 4;
+    private static final int STATE = BOARD_WORDS;
+    private static final int HISTORY = STATE + 1;
+
+    private static final int TURN_SHIFT = 0;
+    private static final int CASTLING_SHIFT = 1;
+    private static final int LAST_PIECE_SHIFT = 8;
+    private static final int LAST_MOVE_SHIFT = 16;
+    private static final int HALFMOVE_SHIFT = 32;
+    private static final int FULLMOVE_SHIFT = 48;
+    private static final long HAS_LAST_MOVE = 1L << 15;
+
+    private final long[] data;
+
+    private GameSnapshot(long[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Packs a game's state
+     *
+     * @param board          the board
+     * @param teamTurn       the team to move
+     * @param castlingFlags  the game's king and rook moved flags
+     * @param halfmoveClock  moves since the last capture or pawn move
+     * @param fullmoveNumber the current full move number
+     * @param lastMove       the last move made, or null
+     * @param lastMovedPiece the piece that made it, or null
+     * @param repetitionKeys the keys of the earlier positions that count
+     *                       towards a repetition, oldest first
+     * @throws IllegalArgumentException if the last move leaves the board
+     */
+    static GameSnapshot of(ChessBoard board, ChessGame.TeamColor teamTurn, int castlingFlags, int halfmoveClock,
+                           int fullmoveNumber, ChessMove lastMove, ChessPiece lastMovedPiece,
+                           long[] repetitionKeys) {
+        long[] data = new long[HISTORY + repetitionKeys.length];
+        long occupied = board.getOccupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            data[square >>> 4] |= (long) code(board.getPiece(square)) << ((square & 15) * 4);
+            occupied &= occupied - 1;
+        }
+
+        long state = (long) teamTurn.ordinal() << TURN_SHIFT
+                | (long) castlingFlags << CASTLING_SHIFT
+                | (long) code(lastMovedPiece) << LAST_PIECE_SHIFT
+                | (halfmoveClock & 0xFFFFL) << HALFMOVE_SHIFT
+                | (fullmoveNumber & 0xFFFFL) << FULLMOVE_SHIFT;
+        if (lastMove != null) {
+            state |= (PackedMove.encode(lastMove) | HAS_LAST_MOVE) << LAST_MOVE_SHIFT;
+        }
+        data[STATE] = state;
+        System.arraycopy(repetitionKeys, 0, data, HISTORY, repetitionKeys.length);
+        return new GameSnapshot(data);
+    }
+
+    /**
+     * @return an independent copy of this snapshot
+     */
+    public GameSnapshot copy() {
+        return new GameSnapshot(data.clone());
+    }
+
+    /**
+     * @return a new game in the state this snapshot was taken in
+     */
+    public ChessGame toGame() {
+        return new ChessGame(this);
+    }
+
+    /**
+     * @return a new board holding the pieces of this snapshot
+     */
+    public ChessBoard toBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = piece((int) (data[square >>> 4] >>> ((square & 15) * 4)) & 15);
+            if (piece != null) {
+                board.addPiece(square, piece);
+            }
+        }
+        return board;
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return ChessGame.TeamColor.values()[(int) (data[STATE] >>> TURN_SHIFT) & 1];
+    }
+
+    public int getHalfmoveClock() {
+        return (int) (data[STATE] >>> HALFMOVE_SHIFT) & 0xFFFF;
+    }
+
+    public int getFullmoveNumber() {
+        return (int) (data[STATE] >>> FULLMOVE_SHIFT) & 0xFFFF;
+    }
+
+    int castlingFlags() {
+        return (int) (data[STATE] >>> CASTLING_SHIFT) & 63;
+    }
+
+    ChessMove lastMove() {
+        long bits = data[STATE] >>> LAST_MOVE_SHIFT;
+        return (bits & HAS_LAST_MOVE) == 0 ? null : PackedMove.toChessMove((int) bits & 0x7FFF);
+    }
+
+    ChessPiece lastMovedPiece() {
+        return piece((int) (data[STATE] >>> LAST_PIECE_SHIFT) & 15);
+    }
+
+    /**
+     * @return the keys of the earlier positions that count towards a
+     * repetition, oldest first, as given by {@link ChessGame#repetitionKeys}
+     */
+    long[] repetitionKeys() {
+        return Arrays.copyOfRange(data, HISTORY, data.length);
+    }
+
+    private static int code(ChessPiece piece) {
+        return piece == null ? 0 : Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType()) + 1;
+    }
+
+    private static ChessPiece piece(int code) {
+        return code == 0 ? null : ChessPiece.of(code - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(data, ((GameSnapshot) o).data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+}
@@ -0,0 +1,79 @@
+package chess;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The check state and valid moves of the team to move in one position,
+ * worked out once so repeated status questions about the same position do
+ * not generate moves again.
+ * <p>
+ * A status belongs to a board object and a position key. It is stale as
+ * soon as either differs, which covers moves, {@link ChessGame#setBoard},
+ * {@link ChessGame#setTeamTurn} and pieces added to the board directly.
+ */
+final class GameStatus {
+
+    private ChessBoard board;
+    private long key;
+    private boolean valid;
+    private boolean inCheck;
+    private final int[] moves = new int[PackedMove.MAX_MOVES];
+    private int moveCount;
+    private Collection<ChessMove> moveList;
+
+    /**
+     * @return True if this status was computed for the board and key
+     */
+    boolean matches(ChessBoard board, long key) {
+        return valid && this.board == board && this.key == key;
+    }
+
+    void update(ChessBoard board, long key, MoveGenerator generator) {
+        this.board = board;
+        this.key = key;
+        this.inCheck = generator.inCheck();
+        this.moveCount = generator.generateAll(moves, 0);
+        this.moveList = null;
+        this.valid = true;
+    }
+
+    void invalidate() {
+        valid = false;
+        board = null;
+        moveList = null;
+    }
+
+    boolean inCheck() {
+        return inCheck;
+    }
+
+    boolean hasMoves() {
+        return moveCount > 0;
+    }
+
+    /**
+     * Copies the moves starting on a square into a buffer
+     *
+     * @return the number of moves written
+     */
+    int movesFrom(int from, int[] buffer) {
+        int count = 0;
+        for (int i = 0; i < moveCount; i++) {
+            if (PackedMove.from(moves[i]) == from) {
+                buffer[count++] = moves[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return all valid moves as an unmodifiable collection, built on first use
+     */
+    Collection<ChessMove> moveList() {
+        if (moveList == null) {
+            moveList = Collections.unmodifiableCollection(PackedMove.toChessMoves(moves, moveCount));
+        }
+        return moveList;
+    }
+}
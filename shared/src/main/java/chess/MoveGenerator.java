@@ -0,0 +1,301 @@
+package chess;
+
+/**
+ * Generates strictly legal moves for one side of a position.
+ * <p>
+ * Moves are written as {@link PackedMove} ints into a caller-supplied
+ * buffer, and each generate call returns the new number of moves in the
+ * buffer, so generation allocates nothing.
+ * <p>
+ * The pieces giving check, the squares that would block or capture a single
+ * checker, and the pieces pinned to their king are computed once when the
+ * generator is built. Every piece's targets are then filtered with those
+ * masks, so moves never have to be played on the board to be checked. Only
+ * king moves and en passant captures need an attack probe of their own.
+ */
+final class MoveGenerator {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP
+    };
+
+    private final ChessBoard board;
+    private final boolean legal;
+    private final ChessGame.TeamColor team;
+    private final ChessGame.TeamColor enemy;
+    private final int kingSquare;
+    private final boolean castleKingside;
+    private final boolean castleQueenside;
+    private final int enPassantTarget;
+    private final int enPassantVictim;
+
+    private final long own;
+    private final long occupied;
+    private final long checkers;
+    private final long checkMask;
+    private final long pinned;
+
+    /**
+     * @param board           the board to generate moves on
+     * @param team            the side to generate moves for
+     * @param kingSquare      the square of that side's king, or -1 if it has none
+     * @param castleKingside  whether the king and kingside rook have not moved
+     * @param castleQueenside whether the king and queenside rook have not moved
+     * @param enPassantTarget the square a pawn could capture en passant onto, or -1
+     */
+    MoveGenerator(ChessBoard board, ChessGame.TeamColor team, int kingSquare,
+                  boolean castleKingside, boolean castleQueenside, int enPassantTarget) {
+        this(board, true, team, kingSquare, castleKingside, castleQueenside, enPassantTarget);
+    }
+
+    private MoveGenerator(ChessBoard board, boolean legal, ChessGame.TeamColor team, int kingSquare,
+                          boolean castleKingside, boolean castleQueenside, int enPassantTarget) {
+        this.board = board;
+        this.legal = legal;
+        this.team = team;
+        this.enemy = team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.kingSquare = kingSquare;
+        this.castleKingside = castleKingside;
+        this.castleQueenside = castleQueenside;
+        this.enPassantTarget = enPassantTarget;
+        this.enPassantVictim = enPassantTarget < 0 ? -1
+                : enPassantTarget + (team == ChessGame.TeamColor.WHITE ? -8 : 8);
+        this.own = board.getOccupancy(team);
+        this.occupied = board.getOccupied();
+
+        if (!legal || kingSquare < 0) {
+            checkers = 0L;
+            checkMask = -1L;
+            pinned = 0L;
+            return;
+        }
+
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long straight = board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens;
+        long diagonal = board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens;
+        long snipers = (SliderAttacks.rookAttacks(kingSquare, 0L) & straight)
+                | (SliderAttacks.bishopAttacks(kingSquare, 0L) & diagonal);
+
+        long foundCheckers = (Bitboards.KNIGHT_ATTACKS[kingSquare] & board.getPieces(enemy, ChessPiece.PieceType.KNIGHT))
+                | (Bitboards.PAWN_ATTACKS[Bitboards.colorIndex(team)][kingSquare]
+                & board.getPieces(enemy, ChessPiece.PieceType.PAWN));
+        long foundPinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[kingSquare][sniper] & occupied;
+            if (blockers == 0) {
+                foundCheckers |= Bitboards.bit(sniper);
+            } else if ((blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                foundPinned |= blockers;
+            }
+        }
+
+        checkers = foundCheckers;
+        pinned = foundPinned;
+        if (foundCheckers == 0) {
+            checkMask = -1L;
+        } else if ((foundCheckers & (foundCheckers - 1)) == 0) {
+            checkMask = foundCheckers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(foundCheckers)];
+        } else {
+            checkMask = 0L;
+        }
+    }
+
+    /**
+     * Creates a generator for moves that follow each piece's movement rules
+     * but ignore whether they leave the king in danger, without castling or
+     * en passant. These are the moves {@link ChessPiece#pieceMoves} reports.
+     */
+    static MoveGenerator pseudoLegal(ChessBoard board, ChessGame.TeamColor team) {
+        return new MoveGenerator(board, false, team, -1, false, false, -1);
+    }
+
+    /**
+     * @return True if the side's king is attacked
+     */
+    boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Writes the moves of the piece on {@code from} into the buffer
+     *
+     * @param from   the square of the piece to move
+     * @param buffer the move buffer
+     * @param count  the number of moves already in the buffer
+     * @return the number of moves in the buffer afterwards
+     */
+    int generate(int from, int[] buffer, int count) {
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null || piece.getTeamColor() != team) {
+            return count;
+        }
+        return generate(from, piece.getPieceType(), buffer, count);
+    }
+
+    /**
+     * Writes the moves a piece of the given type on {@code from} would have
+     * into the buffer
+     */
+    int generate(int from, ChessPiece.PieceType type, int[] buffer, int count) {
+        long bit = Bitboards.bit(from);
+        return switch (type) {
+            case KING -> addKingMoves(from, buffer, count);
+            case PAWN -> addPawnMoves(from, restrict(from, bit), buffer, count);
+            case KNIGHT -> addTargets(from, Bitboards.KNIGHT_ATTACKS[from] & restrict(from, bit), buffer, count);
+            case BISHOP -> addTargets(from, SliderAttacks.bishopAttacks(from, occupied) & restrict(from, bit),
+                    buffer, count);
+            case ROOK -> addTargets(from, SliderAttacks.rookAttacks(from, occupied) & restrict(from, bit),
+                    buffer, count);
+            case QUEEN -> addTargets(from, SliderAttacks.queenAttacks(from, occupied) & restrict(from, bit),
+                    buffer, count);
+        };
+    }
+
+    /**
+     * Writes the moves of every piece of the side into the buffer
+     *
+     * @return the number of moves in the buffer afterwards
+     */
+    int generateAll(int[] buffer, int count) {
+        long pieces = own;
+        while (pieces != 0) {
+            count = generate(Long.numberOfTrailingZeros(pieces), buffer, count);
+            pieces &= pieces - 1;
+        }
+        return count;
+    }
+
+    /**
+     * The squares a non-king piece may land on: it must resolve any check,
+     * and a pinned piece must stay on the line between its king and the pinner.
+     */
+    private long restrict(int from, long bit) {
+        long allowed = checkMask & ~own;
+        if ((pinned & bit) != 0) {
+            allowed &= Bitboards.LINE[kingSquare][from];
+        }
+        return allowed;
+    }
+
+    private int addTargets(int from, long targets, int[] buffer, int count) {
+        long enemies = board.getOccupancy(enemy);
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            buffer[count++] = PackedMove.encode(from, to, null, captureFlag(to, enemies));
+        }
+        return count;
+    }
+
+    private int addKingMoves(int from, int[] buffer, int count) {
+        long withoutKing = occupied & ~Bitboards.bit(from);
+        long enemies = board.getOccupancy(enemy);
+        long targets = Bitboards.KING_ATTACKS[from] & ~own;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!legal || !board.isSquareAttacked(to, enemy, withoutKing, 0L)) {
+                buffer[count++] = PackedMove.encode(from, to, null, captureFlag(to, enemies));
+            }
+        }
+        if (legal && from == kingSquare && checkers == 0) {
+            count = addCastlingMoves(from, buffer, count);
+        }
+        return count;
+    }
+
+    private int addCastlingMoves(int from, int[] buffer, int count) {
+        int row = team == ChessGame.TeamColor.WHITE ? 1 : 8;
+        if (from != Bitboards.square(row, 5)) {
+            return count;
+        }
+        long rooks = board.getPieces(team, ChessPiece.PieceType.ROOK);
+
+        if (castleKingside && (rooks & Bitboards.bit(Bitboards.square(row, 8))) != 0
+                && board.getPiece(Bitboards.square(row, 6)) == null
+                && board.getPiece(Bitboards.square(row, 7)) == null
+                && !board.isSquareAttacked(Bitboards.square(row, 6), enemy)
+                && !board.isSquareAttacked(Bitboards.square(row, 7), enemy)) {
+            buffer[count++] = PackedMove.encode(from, Bitboards.square(row, 7), null, PackedMove.CASTLE);
+        }
+
+        if (castleQueenside && (rooks & Bitboards.bit(Bitboards.square(row, 1))) != 0
+                && board.getPiece(Bitboards.square(row, 2)) == null
+                && board.getPiece(Bitboards.square(row, 3)) == null
+                && board.getPiece(Bitboards.square(row, 4)) == null
+                && !board.isSquareAttacked(Bitboards.square(row, 3), enemy)
+                && !board.isSquareAttacked(Bitboards.square(row, 4), enemy)) {
+            buffer[count++] = PackedMove.encode(from, Bitboards.square(row, 3), null, PackedMove.CASTLE);
+        }
+        return count;
+    }
+
+    private int addPawnMoves(int from, long allowed, int[] buffer, int count) {
+        boolean white = team == ChessGame.TeamColor.WHITE;
+        int row = Bitboards.rowOf(from);
+        int step = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+        int oneStepRow = white ? row + 1 : row - 1;
+        if (oneStepRow < 1 || oneStepRow > 8) {
+            return count;
+        }
+
+        int oneStep = from + step;
+        if ((occupied & Bitboards.bit(oneStep)) == 0) {
+            if ((allowed & Bitboards.bit(oneStep)) != 0) {
+                count = addPawnMove(from, oneStep, 0, buffer, count);
+            }
+            int twoStep = oneStep + step;
+            if (row == startRow && (occupied & Bitboards.bit(twoStep)) == 0
+                    && (allowed & Bitboards.bit(twoStep)) != 0) {
+                buffer[count++] = PackedMove.encode(from, twoStep, null, PackedMove.DOUBLE_PUSH);
+            }
+        }
+
+        long attacks = Bitboards.PAWN_ATTACKS[Bitboards.colorIndex(team)][from];
+        long captures = attacks & board.getOccupancy(enemy) & allowed;
+        while (captures != 0) {
+            count = addPawnMove(from, Long.numberOfTrailingZeros(captures), PackedMove.CAPTURE, buffer, count);
+            captures &= captures - 1;
+        }
+
+        if (enPassantTarget >= 0 && (attacks & Bitboards.bit(enPassantTarget)) != 0
+                && isLegalEnPassant(from)) {
+            buffer[count++] = PackedMove.encode(from, enPassantTarget, null,
+                    PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+        }
+        return count;
+    }
+
+    /**
+     * En passant removes two pieces from a line at once, so it is checked by
+     * probing the king with the occupancy after the capture.
+     */
+    private boolean isLegalEnPassant(int from) {
+        if (kingSquare < 0) {
+            return true;
+        }
+        long victim = Bitboards.bit(enPassantVictim);
+        long after = (occupied & ~Bitboards.bit(from) & ~victim) | Bitboards.bit(enPassantTarget);
+        return !board.isSquareAttacked(kingSquare, enemy, after, victim);
+    }
+
+    private int addPawnMove(int from, int to, int flags, int[] buffer, int count) {
+        int row = Bitboards.rowOf(to);
+        if (row == 1 || row == 8) {
+            for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                buffer[count++] = PackedMove.encode(from, to, promotion, flags);
+            }
+        } else {
+            buffer[count++] = PackedMove.encode(from, to, null, flags);
+        }
+        return count;
+    }
+
+    private static int captureFlag(int to, long enemies) {
+        return (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0;
+    }
+}
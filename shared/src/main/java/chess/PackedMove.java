@@ -0,0 +1,103 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Encodes a chess move in a single int so move lists can be kept in
+ * primitive arrays.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square. Squares are
+ * numbered 0 to 63 row by row from white's side, {@code (row - 1) * 8 +
+ * (column - 1)}: a1 is 0, h1 is 7, a2 is 8 and h8 is 63. Bits 12-14 hold
+ * the promotion piece as {@code PieceType.ordinal() + 1}, or 0 for no
+ * promotion. The remaining bits are flags describing the move.
+ */
+public final class PackedMove {
+
+    /**
+     * A buffer of this size can hold every legal move of any position
+     */
+    public static final int MAX_MOVES = 256;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int CASTLE = 1 << 18;
+
+    private static final int MOVE_MASK = 0x7FFF;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param from      start square index, 0 (a1) to 63 (h8) as described
+     *                  above
+     * @param to        end square index, numbered the same way
+     * @param promotion piece to promote to, or null
+     * @param flags     any combination of the flag constants
+     * @return the packed move
+     */
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promotionBits << 12) | flags;
+    }
+
+    /**
+     * Packs a move without any flags
+     *
+     * @throws IllegalArgumentException if either position is off the board,
+     *                                  which would otherwise pack as some
+     *                                  other square
+     */
+    public static int encode(ChessMove move) {
+        if (!Bitboards.onBoard(move.getStartPosition()) || !Bitboards.onBoard(move.getEndPosition())) {
+            throw new IllegalArgumentException("Move leaves the board: " + move);
+        }
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the promotion piece, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int bits = (move >>> 12) & 7;
+        return bits == 0 ? null : TYPES[bits - 1];
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return True if both moves have the same squares and promotion, ignoring flags
+     */
+    public static boolean sameMove(int first, int second) {
+        return (first & MOVE_MASK) == (second & MOVE_MASK);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    /**
+     * Converts the first {@code count} moves of a buffer into move objects
+     */
+    public static Collection<ChessMove> toChessMoves(int[] buffer, int count) {
+        Collection<ChessMove> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(toChessMove(buffer[i]));
+        }
+        return moves;
+    }
+}
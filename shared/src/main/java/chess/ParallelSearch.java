@@ -0,0 +1,156 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches one position on several threads at once ("Lazy SMP").
+ * <p>
+ * The calling thread runs the main {@link Engine}; helper threads run
+ * engines of their own on the same position. The engines do not talk to each
+ * other: they share a {@link TranspositionTable}, so every result one of them
+ * stores can cut short or reorder the search of the others. When the main
+ * engine finishes, the helpers are told to stop and the main engine's move is
+ * returned, with the nodes of all threads counted.
+ * <p>
+ * The helper threads are created once and kept for later searches. A
+ * parallel search runs one search at a time; call {@link #close()} to end
+ * its threads.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final TranspositionTable table;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private final Engine main;
+    private final Engine[] helpers;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a search using one thread per available processor
+     */
+    public ParallelSearch(TranspositionTable table) {
+        this(table, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param table   the table the threads share, which other searches may
+     *                share too
+     * @param threads how many threads to search on, the calling thread
+     *                included
+     */
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.table = table;
+        this.main = new Engine(table, stopSignal, 0);
+        this.helpers = new Engine[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Engine(table, stopSignal, i + 1);
+        }
+        if (helpers.length == 0) {
+            this.executor = null;
+        } else {
+            String prefix = "chess-search-" + POOL_NUMBER.incrementAndGet() + "-helper-";
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(helpers.length, task -> {
+                Thread thread = new Thread(task, prefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Searches for the best move of the team to move. The game itself is not
+     * changed. Helpers search without a depth or node limit until the main
+     * engine finishes, so the node budget counts only the main engine's
+     * nodes.
+     *
+     * @param game   the game to find a move in
+     * @param limits how deep and how long the main engine searches
+     * @return the main engine's result, with the nodes of all threads
+     */
+    public synchronized SearchResult search(ChessGame game, SearchLimits limits) {
+        stopSignal.set(false);
+        table.newSearch();
+
+        SearchLimits helperLimits = new SearchLimits(SearchLimits.MAX_DEPTH, Long.MAX_VALUE, limits.getMaxMillis());
+        List<Future<SearchResult>> running = new ArrayList<>(helpers.length);
+        for (Engine helper : helpers) {
+            running.add(executor.submit(() -> helper.search(game, helperLimits)));
+        }
+
+        SearchResult result;
+        try {
+            result = main.search(game, limits);
+        } finally {
+            stopSignal.set(true);
+        }
+
+        long nodes = result.getNodes();
+        for (Future<SearchResult> helper : running) {
+            nodes += await(helper).getNodes();
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes, result.getMillis());
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can. The search still
+     * returns its best move so far.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * @return the number of threads a search runs on
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Stops any running search and ends the helper threads
+     */
+    @Override
+    public void close() {
+        stop();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static SearchResult await(Future<SearchResult> helper) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return helper.get();
+                } catch (InterruptedException e) {
+                    // helpers stop promptly once signalled; finish waiting so
+                    // no helper is still using its engine at the next search
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Helper search failed", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
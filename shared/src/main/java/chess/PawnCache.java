@@ -0,0 +1,96 @@
+package chess;
+
+/**
+ * A fixed-size cache of pawn structure scores, keyed by the board's pawn
+ * key (see {@link ChessBoard#getPawnKey}).
+ * <p>
+ * Pawns move far less often than other pieces, so most positions a search
+ * visits share their pawns with a position scored a moment earlier. Each key
+ * maps to one slot by its low bits and a new score simply replaces the old
+ * one. A cache belongs to one {@link Engine} and is not thread-safe.
+ */
+public final class PawnCache {
+
+    /**
+     * Number of entries in the cache an engine creates for itself
+     */
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final long[] scores;
+    /**
+     * Whether a slot holds a stored score; an unused slot's key of 0 would
+     * otherwise match the key of a board without pawns
+     */
+    private final boolean[] used;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * @param entries how many pawn structures to keep; rounded down to a
+     *                power of two
+     */
+    public PawnCache(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1: " + entries);
+        }
+        int size = Integer.highestOneBit(entries);
+        this.keys = new long[size];
+        this.scores = new long[size];
+        this.used = new boolean[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return the pawn structure score of the board, as packed by
+     * {@link Evaluation#pawnStructure}
+     */
+    long get(ChessBoard board) {
+        probes++;
+        long key = board.getPawnKey();
+        int index = (int) key & mask;
+        if (keys[index] == key && used[index]) {
+            hits++;
+            return scores[index];
+        }
+        long score = Evaluation.pawnStructure(board);
+        keys[index] = key;
+        scores[index] = score;
+        used[index] = true;
+        return score;
+    }
+
+    /**
+     * @return the number of entries the cache holds
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the fraction of lookups answered from the cache, or 0 before
+     * the first lookup
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    public void resetStats() {
+        probes = 0;
+        hits = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PawnCache{entries=" + getCapacity() + ", probes=" + probes + ", hitRate=" + getHitRate() + "}";
+    }
+}
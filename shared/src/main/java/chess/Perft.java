@@ -0,0 +1,175 @@
+package chess;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the move tree to a fixed depth ("perft"), to check
+ * the move generator against known node counts and to measure its speed.
+ * <p>
+ * Run {@code main} to play the reference suite and print nodes per second;
+ * the first argument limits the depth (default 4).
+ */
+public final class Perft {
+
+    /**
+     * A standard test position together with its known node counts
+     */
+    public static final class Position {
+        private final String name;
+        private final String fen;
+        private final long[] expected;
+
+        Position(String name, String fen, long... expected) {
+            this.name = name;
+            this.fen = fen;
+            this.expected = expected;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFen() {
+            return fen;
+        }
+
+        /**
+         * @return the deepest depth with a known node count
+         */
+        public int getMaxDepth() {
+            return expected.length;
+        }
+
+        /**
+         * @return the known node count at the given depth, starting at 1
+         */
+        public long getExpected(int depth) {
+            return expected[depth - 1];
+        }
+
+        /**
+         * @return a fresh game set up in this position
+         */
+        public ChessGame createGame() {
+            return Fen.parseGame(fen);
+        }
+    }
+
+    /**
+     * Reference positions from the chess programming community
+     */
+    public static final List<Position> REFERENCE_POSITIONS = Collections.unmodifiableList(List.of(
+            new Position("start", Fen.START,
+                    20, 400, 8902, 197281, 4865609, 119060324),
+            new Position("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603, 193690690),
+            new Position("endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624, 11030083),
+            new Position("promotions", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333, 15833292),
+            new Position("discovered", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487, 89941194),
+            new Position("middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594, 164075551)
+    ));
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the positions reachable in exactly {@code depth} moves
+     *
+     * @param game  the game to start from; it is copied, not modified
+     * @param depth how many moves deep to count, at least 1
+     * @return the number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth) {
+        ChessGame copy = new ChessGame(game);
+        return perft(copy, depth, new int[depth][PackedMove.MAX_MOVES]);
+    }
+
+    private static long perft(ChessGame game, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = game.validMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.applyMove(moves[i]);
+            nodes += perft(game, depth - 1, buffers);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes below each root move separately, which makes it
+     * easy to narrow a wrong total down to the move that causes it
+     *
+     * @return the node count for each valid root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.validMoves(moves);
+        Map<ChessMove, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            ChessGame child = new ChessGame(game);
+            child.applyMove(moves[i]);
+            result.put(PackedMove.toChessMove(moves[i]), depth <= 1 ? 1L : perft(child, depth - 1));
+        }
+        return result;
+    }
+
+    /**
+     * Prints the divide output for a position, one root move per line, then the total
+     */
+    public static void printDivide(ChessGame game, int depth, PrintStream out) {
+        long total = 0;
+        for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+            out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        out.println("total: " + total);
+    }
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        List<String> failures = new ArrayList<>();
+        long totalNodes = 0;
+        long totalNanos = 0;
+
+        for (Position position : REFERENCE_POSITIONS) {
+            for (int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); depth++) {
+                long start = System.nanoTime();
+                long nodes = perft(position.createGame(), depth);
+                long nanos = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalNanos += nanos;
+
+                boolean ok = nodes == position.getExpected(depth);
+                if (!ok) {
+                    failures.add(position.getName() + " depth " + depth);
+                }
+                System.out.printf("%-12s depth %d: %,14d nodes %8.1f ms %,14d nps %s%n",
+                        position.getName(), depth, nodes, nanos / 1e6, nodesPerSecond(nodes, nanos),
+                        ok ? "ok" : "FAIL (expected " + position.getExpected(depth) + ")");
+            }
+        }
+
+        System.out.printf("total: %,d nodes, %,d nps%n", totalNodes, nodesPerSecond(totalNodes, totalNanos));
+        if (!failures.isEmpty()) {
+            System.out.println("failed: " + failures);
+            System.exit(1);
+        }
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
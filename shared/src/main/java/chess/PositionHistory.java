@@ -0,0 +1,163 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * The position keys of a game in the order they occurred, with a count of
+ * how often each key has been seen so repetitions can be looked up in
+ * constant time.
+ * <p>
+ * The counts live in an open-addressing table of primitive longs and ints,
+ * so recording a position allocates nothing until the table has to grow.
+ * Keys whose count drops back to zero are removed again, so making and
+ * undoing moves in a search does not fill the table.
+ */
+final class PositionHistory {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private long[] tableKeys;
+    private int[] tableCounts;
+    private int size;
+    private int used;
+    /**
+     * A key of 0 marks an empty table slot, so its count is kept apart
+     */
+    private int zeroCount;
+
+    PositionHistory() {
+        keys = new long[INITIAL_CAPACITY];
+        tableKeys = new long[INITIAL_CAPACITY * 2];
+        tableCounts = new int[INITIAL_CAPACITY * 2];
+    }
+
+    PositionHistory(PositionHistory other) {
+        keys = other.keys.clone();
+        tableKeys = other.tableKeys.clone();
+        tableCounts = other.tableCounts.clone();
+        size = other.size;
+        used = other.used;
+        zeroCount = other.zeroCount;
+    }
+
+    /**
+     * Records that a position occurred
+     *
+     * @return how many times the position has now occurred
+     */
+    int push(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size++] = key;
+        if (key == 0) {
+            return ++zeroCount;
+        }
+        if ((used + 1) * 4 > tableKeys.length * 3) {
+            rehash(tableKeys.length * 2);
+        }
+        int slot = slot(key);
+        if (tableKeys[slot] == 0) {
+            tableKeys[slot] = key;
+            used++;
+        }
+        return ++tableCounts[slot];
+    }
+
+    /**
+     * Forgets the most recent position
+     */
+    void pop() {
+        long key = keys[--size];
+        if (key == 0) {
+            zeroCount--;
+            return;
+        }
+        int slot = slot(key);
+        if (--tableCounts[slot] == 0) {
+            remove(slot);
+        }
+    }
+
+    /**
+     * @return how many times a position has occurred
+     */
+    int count(long key) {
+        if (key == 0) {
+            return zeroCount;
+        }
+        int slot = slot(key);
+        return tableKeys[slot] == 0 ? 0 : tableCounts[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the key recorded {@code index}-th, counting from the oldest
+     */
+    long get(int index) {
+        return keys[index];
+    }
+
+    void clear() {
+        Arrays.fill(tableKeys, 0L);
+        Arrays.fill(tableCounts, 0);
+        size = 0;
+        used = 0;
+        zeroCount = 0;
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it belongs
+     */
+    private int slot(long key) {
+        int mask = tableKeys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (tableKeys[slot] != 0 && tableKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, moving later keys of the same probe run back so
+     * lookups never stop early at the gap
+     */
+    private void remove(int slot) {
+        int mask = tableKeys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (tableKeys[next] != 0) {
+            int home = (int) (tableKeys[next] ^ (tableKeys[next] >>> 32)) & mask;
+            // the key at next may fill the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                tableKeys[gap] = tableKeys[next];
+                tableCounts[gap] = tableCounts[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        tableKeys[gap] = 0;
+        tableCounts[gap] = 0;
+        used--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = tableKeys;
+        int[] oldCounts = tableCounts;
+        tableKeys = new long[capacity];
+        tableCounts = new int[capacity];
+        used = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                tableKeys[slot] = oldKeys[i];
+                tableCounts[slot] = oldCounts[i];
+                used++;
+            }
+        }
+    }
+}
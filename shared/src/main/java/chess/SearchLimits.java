@@ -0,0 +1,73 @@
+package chess;
+
+/**
+ * How long a {@link Engine} search may run: a maximum depth, a node budget
+ * and a time budget. The search stops at whichever is reached first and
+ * returns the best move found so far.
+ */
+public final class SearchLimits {
+
+    /**
+     * The deepest search the engine will start, in plies
+     */
+    public static final int MAX_DEPTH = 64;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxMillis;
+
+    /**
+     * @param maxDepth  the deepest iteration to search, in plies, from 1 to {@link #MAX_DEPTH}
+     * @param maxNodes  the most positions to visit, or {@link Long#MAX_VALUE} for no limit
+     * @param maxMillis the most time to take in milliseconds, or {@link Long#MAX_VALUE} for no limit
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxMillis) {
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH + ": " + maxDepth);
+        }
+        if (maxNodes < 1 || maxMillis < 1) {
+            throw new IllegalArgumentException("Node and time budgets must be positive");
+        }
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * @return limits that search to a fixed depth, however long it takes
+     */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that search as deep as the time allows
+     */
+    public static SearchLimits millis(long maxMillis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, maxMillis);
+    }
+
+    /**
+     * @return limits that search as deep as the node budget allows
+     */
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(MAX_DEPTH, maxNodes, Long.MAX_VALUE);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits{depth=" + maxDepth + ", nodes=" + maxNodes + ", millis=" + maxMillis + "}";
+    }
+}
@@ -0,0 +1,68 @@
+package chess;
+
+/**
+ * The outcome of an {@link Engine} search: the move to play, its score and
+ * how much work the search did.
+ */
+public final class SearchResult {
+
+    private final ChessMove bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+
+    SearchResult(ChessMove bestMove, int score, int depth, long nodes, long millis) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    /**
+     * @return the move to play, or null if the team to move has no valid moves
+     */
+    public ChessMove getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the score in centipawns for the team to move; mate scores are
+     * within {@link Engine#MAX_PLY} of plus or minus {@link Engine#MATE}
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return True if the score is a forced mate, for either team
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Engine.MATE - Engine.MAX_PLY;
+    }
+
+    /**
+     * @return the depth of the last iteration that finished, in plies
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the number of positions visited
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{move=" + bestMove + ", score=" + score + ", depth=" + depth
+                + ", nodes=" + nodes + ", millis=" + millis + "}";
+    }
+}
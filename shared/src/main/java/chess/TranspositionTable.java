@@ -0,0 +1,233 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size hash table of search results, keyed by position, that any
+ * number of {@link Engine} threads can share.
+ * <p>
+ * The table is a plain {@code long[]} with two words per entry: the
+ * position's Zobrist key XORed with the data, and the data itself. The data
+ * packs the best move, the score, the depth searched, what kind of bound the
+ * score is and the search generation that stored it. Threads read and write
+ * entries without locks; if two threads write the same entry at once and a
+ * reader sees half of each, the key check fails and the entry counts as a
+ * miss. The number of entries is a power of two, so a key maps to its entry
+ * with a mask.
+ */
+public final class TranspositionTable {
+
+    /**
+     * Bound kinds: the score is exact, at least the stored score (the search
+     * failed high), or at most the stored score (it failed low)
+     */
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    /**
+     * What {@link #probe} returns when the position is not in the table
+     */
+    public static final long MISS = 0;
+
+    /**
+     * Which entry wins when a new result maps to an occupied slot
+     */
+    public enum ReplacementPolicy {
+        /**
+         * The newest result always replaces the old one
+         */
+        ALWAYS,
+        /**
+         * The old entry is kept only if it comes from the current search, is
+         * for a different position, and is deeper than the new result, and
+         * the new result is not exact. Otherwise the new result replaces it:
+         * an exact result or a result for the same position always does,
+         * whatever the old entry's depth or bound.
+         */
+        DEPTH_PREFERRED
+    }
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final int MAX_DEPTH = 0xFF;
+
+    private static final int MOVE_BITS = 19;
+    private static final int BOUND_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = BOUND_SHIFT + 2;
+    private static final int GENERATION_SHIFT = DEPTH_SHIFT + 8;
+    private static final int SCORE_SHIFT = GENERATION_SHIFT + 8;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+
+    private final long[] table;
+    private final int mask;
+    private final ReplacementPolicy policy;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Creates a table using depth-preferred replacement
+     *
+     * @param megabytes the most memory the table may use; the entry count
+     *                  is rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        this(megabytes, ReplacementPolicy.DEPTH_PREFERRED);
+    }
+
+    /**
+     * @param megabytes the most memory the table may use; the entry count
+     *                  is rounded down to a power of two
+     * @param policy    which entry to keep when two results collide
+     */
+    public TranspositionTable(int megabytes, ReplacementPolicy policy) {
+        if (megabytes < 1 || megabytes > 32 * 1024) {
+            throw new IllegalArgumentException("Table size must be between 1 MB and 32 GB: " + megabytes);
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Replacement policy must not be null");
+        }
+        long entries = Long.highestOneBit(megabytes * 1024L * 1024L / BYTES_PER_ENTRY);
+        // a Java array holds at most 2^31 - 1 words, so at most 2^30 entries
+        entries = Math.min(entries, 1L << 30);
+        this.table = new long[(int) (entries * 2)];
+        this.mask = (int) (entries - 1);
+        this.policy = policy;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @return the entry's data, to be read with {@link #move}, {@link #score},
+     * {@link #depth} and {@link #bound}, or {@link #MISS}
+     */
+    public long probe(long key) {
+        probes.increment();
+        int index = index(key);
+        long data = table[index + 1];
+        if (data == MISS || (table[index] ^ data) != key) {
+            return MISS;
+        }
+        hits.increment();
+        return data;
+    }
+
+    /**
+     * Records a search result for a position, unless the replacement policy
+     * keeps the entry already there
+     *
+     * @param move  the best move as a {@link PackedMove}, or 0 if none is known
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = index(key);
+        int current = generation;
+        if (policy == ReplacementPolicy.DEPTH_PREFERRED) {
+            long old = table[index + 1];
+            if (old != MISS && generation(old) == current && bound != EXACT
+                    && depth(old) > depth && (table[index] ^ old) != key) {
+                return;
+            }
+        }
+        long data = (move & MOVE_MASK)
+                | (long) bound << BOUND_SHIFT
+                | (long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT
+                | (long) current << GENERATION_SHIFT
+                | (long) (score & 0xFFFF) << SCORE_SHIFT;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+        stores.increment();
+    }
+
+    /**
+     * Starts a new search generation, so results of earlier searches give
+     * way to new ones under {@link ReplacementPolicy#DEPTH_PREFERRED}
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table and resets its statistics. Must not run while a
+     * search is using the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        resetStats();
+    }
+
+    public void resetStats() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return the fraction of probes that found their position, or 0 before
+     * the first probe
+     */
+    public double getHitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : (double) hits.sum() / probed;
+    }
+
+    /**
+     * @return the best move of an entry as a {@link PackedMove}, or 0
+     */
+    public static int move(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> SCORE_SHIFT);
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    private int index(long key) {
+        // the low bits of the key pick the entry; two words per entry
+        return ((int) key & mask) << 1;
+    }
+
+    @Override
+    public String toString() {
+        return "TranspositionTable{entries=" + getCapacity() + ", policy=" + policy
+                + ", probes=" + getProbes() + ", hitRate=" + getHitRate() + "}";
+    }
+}
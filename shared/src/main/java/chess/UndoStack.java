@@ -0,0 +1,141 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * The information {@link ChessGame#undoMove} needs to take moves back, kept
+ * in parallel arrays so pushing a move allocates nothing once the arrays
+ * have grown to the game's length.
+ * <p>
+ * Each entry packs the move played, the six castling flags and both king
+ * squares into one long, and keeps the previous position key, halfmove
+ * clock and the objects that have to be put back.
+ */
+final class UndoStack {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] info;
+    private long[] stateKeys;
+    private int[] halfmoveClocks;
+    private ChessPiece[] captured;
+    private ChessMove[] lastMoves;
+    private ChessPiece[] lastMovedPieces;
+    private int size;
+
+    UndoStack() {
+        info = new long[INITIAL_CAPACITY];
+        stateKeys = new long[INITIAL_CAPACITY];
+        halfmoveClocks = new int[INITIAL_CAPACITY];
+        captured = new ChessPiece[INITIAL_CAPACITY];
+        lastMoves = new ChessMove[INITIAL_CAPACITY];
+        lastMovedPieces = new ChessPiece[INITIAL_CAPACITY];
+    }
+
+    UndoStack(UndoStack other) {
+        int capacity = Math.max(INITIAL_CAPACITY, other.size);
+        info = Arrays.copyOf(other.info, capacity);
+        stateKeys = Arrays.copyOf(other.stateKeys, capacity);
+        halfmoveClocks = Arrays.copyOf(other.halfmoveClocks, capacity);
+        captured = Arrays.copyOf(other.captured, capacity);
+        lastMoves = Arrays.copyOf(other.lastMoves, capacity);
+        lastMovedPieces = Arrays.copyOf(other.lastMovedPieces, capacity);
+        size = other.size;
+    }
+
+    /**
+     * Packs the parts of an entry that fit in a long
+     *
+     * @param move          the packed move that was played
+     * @param castlingFlags the six castling flags before the move
+     * @param whiteKing     the white king square before the move, or -1
+     * @param blackKing     the black king square before the move, or -1
+     */
+    static long pack(int move, int castlingFlags, int whiteKing, int blackKing) {
+        return (move & 0xFFFFFFFFL)
+                | ((long) castlingFlags << 32)
+                | ((long) (whiteKing + 1) << 38)
+                | ((long) (blackKing + 1) << 45);
+    }
+
+    void push(long packed, long stateKey, int halfmoveClock, ChessPiece capturedPiece, ChessMove lastMove,
+              ChessPiece lastMovedPiece) {
+        if (size == info.length) {
+            int capacity = size * 2;
+            info = Arrays.copyOf(info, capacity);
+            stateKeys = Arrays.copyOf(stateKeys, capacity);
+            halfmoveClocks = Arrays.copyOf(halfmoveClocks, capacity);
+            captured = Arrays.copyOf(captured, capacity);
+            lastMoves = Arrays.copyOf(lastMoves, capacity);
+            lastMovedPieces = Arrays.copyOf(lastMovedPieces, capacity);
+        }
+        info[size] = packed;
+        stateKeys[size] = stateKey;
+        halfmoveClocks[size] = halfmoveClock;
+        captured[size] = capturedPiece;
+        lastMoves[size] = lastMove;
+        lastMovedPieces[size] = lastMovedPiece;
+        size++;
+    }
+
+    /**
+     * Drops the top entry
+     */
+    void pop() {
+        size--;
+        captured[size] = null;
+        lastMoves[size] = null;
+        lastMovedPieces[size] = null;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(captured, 0, size, null);
+        Arrays.fill(lastMoves, 0, size, null);
+        Arrays.fill(lastMovedPieces, 0, size, null);
+        size = 0;
+    }
+
+    int move(int index) {
+        return (int) info[index];
+    }
+
+    int castlingFlags(int index) {
+        return (int) (info[index] >>> 32) & 63;
+    }
+
+    int whiteKing(int index) {
+        return (int) ((info[index] >>> 38) & 127) - 1;
+    }
+
+    int blackKing(int index) {
+        return (int) ((info[index] >>> 45) & 127) - 1;
+    }
+
+    long stateKey(int index) {
+        return stateKeys[index];
+    }
+
+    int halfmoveClock(int index) {
+        return halfmoveClocks[index];
+    }
+
+    ChessPiece captured(int index) {
+        return captured[index];
+    }
+
+    ChessMove lastMove(int index) {
+        return lastMoves[index];
+    }
+
+    ChessPiece lastMovedPiece(int index) {
+        return lastMovedPieces[index];
+    }
+}
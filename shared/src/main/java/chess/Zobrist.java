@@ -0,0 +1,70 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of chess positions.
+ * <p>
+ * A position's key is the XOR of one key per piece on its square, plus keys
+ * for black to move, the castling rights and the en passant file. Making a
+ * move only has to XOR out what changed and XOR in what replaced it. The keys
+ * come from a fixed seed so they are the same in every JVM.
+ */
+final class Zobrist {
+
+    /**
+     * Castling right bits, combined into an index from 0 to 15
+     */
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = random.nextLong();
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex the piece index (see {@link Bitboards#pieceIndex})
+     * @param square     the square index
+     */
+    static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex * 64 + square];
+    }
+
+    /**
+     * @param rights a combination of the castling right bits
+     */
+    static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @param square the en passant target square, or -1 for none
+     */
+    static long enPassant(int square) {
+        return square < 0 ? 0L : EN_PASSANT_FILE[square & 7];
+    }
+
+    static long sideToMove(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0L;
+    }
+}
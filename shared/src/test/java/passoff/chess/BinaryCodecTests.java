@@ -0,0 +1,92 @@
+package passoff.chess;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BinaryCodecTests {
+
+    @Test
+    @DisplayName("Round Trip Reference Positions")
+    public void roundTripGames() {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = position.createGame();
+            ChessGame decoded = BinaryCodec.decodeGame(BinaryCodec.encode(game));
+            Assertions.assertEquals(game.snapshot(), decoded.snapshot(), "Game should round trip for " + position.getName());
+            Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Round Trip Keeps En Passant And Castling")
+    public void roundTripState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(6, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 1), new ChessPosition(7, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+
+        ChessGame decoded = BinaryCodec.decodeGame(BinaryCodec.encode(game));
+        Assertions.assertEquals(Fen.format(game), Fen.format(decoded));
+        Assertions.assertEquals(game.snapshot(), decoded.snapshot());
+        Assertions.assertTrue(decoded.validMoves(new ChessPosition(5, 5))
+                .contains(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null)));
+    }
+
+    @Test
+    @DisplayName("Compact Encoding")
+    public void compactEncoding() {
+        Assertions.assertEquals(30, BinaryCodec.encode(new ChessGame()).length);
+        Assertions.assertEquals(25, BinaryCodec.encode(TestUtilities.defaultBoard()).length);
+        Assertions.assertEquals(TestUtilities.defaultBoard(),
+                BinaryCodec.decodeBoard(BinaryCodec.encode(TestUtilities.defaultBoard())));
+    }
+
+    @Test
+    @DisplayName("Round Trip Moves")
+    public void roundTripMoves() {
+        ChessMove[] moves = {
+                new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 8), null),
+                new ChessMove(new ChessPosition(7, 3), new ChessPosition(8, 3), ChessPiece.PieceType.KNIGHT),
+                new ChessMove(new ChessPosition(2, 8), new ChessPosition(1, 7), ChessPiece.PieceType.QUEEN),
+        };
+        for (ChessMove move : moves) {
+            byte[] bytes = BinaryCodec.encode(move);
+            Assertions.assertEquals(3, bytes.length);
+            Assertions.assertEquals(move, BinaryCodec.decodeMove(bytes));
+        }
+    }
+
+    @Test
+    @DisplayName("Decode Version 1")
+    public void decodeVersionOne() {
+        byte[] bytes = BinaryCodec.encode(new ChessGame());
+        bytes[0] = 1;
+        Assertions.assertEquals(new ChessGame(), BinaryCodec.decodeGame(bytes));
+
+        bytes[1] |= (byte) 0x80;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeGame(bytes),
+                "Version 1 has no repetition history");
+    }
+
+    @Test
+    @DisplayName("Reject Invalid Data")
+    public void rejectInvalid() {
+        byte[] game = BinaryCodec.encode(new ChessGame());
+        byte[] wrongVersion = game.clone();
+        wrongVersion[0] = 99;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeGame(wrongVersion));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeGame(java.util.Arrays.copyOf(game, game.length - 1)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeGame(java.util.Arrays.copyOf(game, game.length + 1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeMove(new byte[0]));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.encode(new ChessMove(new ChessPosition(2, 1), new ChessPosition(2, 9), null)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.encode(new ChessMove(new ChessPosition(0, 5), new ChessPosition(1, 5), null)));
+    }
+}
@@ -51,6 +51,17 @@ public class ChessBoardTests extends EqualsTestingUtility<ChessBoard> {
                 "ChessPiece returned by getPiece had the wrong team color");
     }
 
+    @Test
+    @DisplayName("Add Piece Off Board")
+    public void addPieceOffBoard() {
+        var board = new ChessBoard();
+        ChessPiece king = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> board.addPiece(new ChessPosition(1, 9), king));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> board.addPiece(new ChessPosition(0, 1), king));
+        Assertions.assertEquals(new ChessBoard(), board, "A rejected piece should leave the board unchanged");
+    }
+
     @Test
     @DisplayName("Reset Board")
     public void defaultGameBoard() {
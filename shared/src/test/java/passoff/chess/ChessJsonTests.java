@@ -0,0 +1,63 @@
+package passoff.chess;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessJsonTests {
+
+    private final Gson gson = ChessJson.gson();
+
+    @Test
+    @DisplayName("Compact Forms")
+    public void compactForms() {
+        Assertions.assertEquals("\"e4\"", gson.toJson(new ChessPosition(4, 5)));
+        Assertions.assertEquals("\"g1f3\"",
+                gson.toJson(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null)));
+        Assertions.assertEquals("\"a2a1n\"",
+                gson.toJson(new ChessMove(new ChessPosition(2, 1), new ChessPosition(1, 1), ChessPiece.PieceType.KNIGHT)));
+        Assertions.assertEquals("\"N\"", gson.toJson(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT)));
+        Assertions.assertEquals("\"k\"", gson.toJson(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING)));
+        Assertions.assertEquals("\"" + Fen.START + "\"", gson.toJson(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Round Trip")
+    public void roundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        ChessGame decoded = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game, decoded);
+        Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        Assertions.assertEquals(game.getBoard(), gson.fromJson(gson.toJson(game.getBoard()), ChessBoard.class));
+
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 3), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals(promotion, gson.fromJson(gson.toJson(promotion), ChessMove.class));
+        Assertions.assertNull(gson.fromJson("null", ChessMove.class));
+    }
+
+    @Test
+    @DisplayName("Read Reflective Form")
+    public void readReflectiveForm() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 3), new ChessPosition(8, 3), ChessPiece.PieceType.ROOK);
+        String reflective = new Gson().toJson(move);
+        Assertions.assertEquals(move, gson.fromJson(reflective, ChessMove.class),
+                "Moves written without the adapters should still be read");
+
+        ChessPiece piece = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP),
+                gson.fromJson(new Gson().toJson(piece), ChessPiece.class));
+    }
+
+    @Test
+    @DisplayName("Reject Invalid JSON")
+    public void rejectInvalid() {
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"z9\"", ChessPosition.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"e2e4x\"", ChessMove.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8 w\"", ChessGame.class));
+    }
+}
@@ -68,4 +68,18 @@ public class ChessPieceTests extends EqualsTestingUtility<ChessPiece> {
         }
     }
 
+    @Test
+    @DisplayName("Shared Pieces On Starting Board")
+    public void sharedPieces() {
+        ChessPiece piece = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        Assertions.assertSame(piece, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                "ChessPiece.of should return the same instance for the same color and type");
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT), piece);
+
+        var board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertSame(board.getPiece(new ChessPosition(2, 1)), board.getPiece(new ChessPosition(2, 8)),
+                "Pawns of the starting board should share one instance");
+    }
+
 }
@@ -0,0 +1,91 @@
+package passoff.chess;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("Start Position")
+    public void startPosition() {
+        ChessGame game = Fen.parseGame(Fen.START);
+        Assertions.assertEquals(new ChessGame(), game, "Start FEN should give the default game");
+        Assertions.assertEquals(new ChessGame().getZobristKey(), game.getZobristKey());
+        Assertions.assertEquals(Fen.START, Fen.format(new ChessGame()));
+        Assertions.assertEquals(TestUtilities.defaultBoard(), Fen.parseBoard(Fen.START));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", Fen.format(TestUtilities.defaultBoard()));
+    }
+
+    @Test
+    @DisplayName("Round Trip Reference Positions")
+    public void roundTrip() {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = Fen.parseGame(position.getFen());
+            Assertions.assertEquals(position.getFen(), Fen.format(game), "FEN should round trip for " + position.getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Moves Update FEN")
+    public void movesUpdateFen() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", Fen.format(game));
+
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+        Assertions.assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 2 2", Fen.format(game));
+
+        Assertions.assertEquals(game, Fen.parseGame(Fen.format(game)));
+        Assertions.assertEquals(game.getZobristKey(), Fen.parseGame(Fen.format(game)).getZobristKey());
+    }
+
+    @Test
+    @DisplayName("En Passant And Castling From FEN")
+    public void enPassantAndCastling() throws InvalidMoveException {
+        ChessGame game = Fen.parseGame(new StringBuilder("r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 0 20"));
+        Assertions.assertEquals(20, game.getFullmoveNumber());
+
+        ChessMove enPassant = new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null);
+        Assertions.assertTrue(game.validMoves(new ChessPosition(5, 5)).contains(enPassant));
+        Assertions.assertTrue(game.validMoves(new ChessPosition(1, 5))
+                .contains(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null)));
+        Assertions.assertFalse(game.validMoves(new ChessPosition(1, 5))
+                .contains(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 3), null)));
+
+        game.makeMove(enPassant);
+        Assertions.assertEquals("r3k2r/8/3P4/8/8/8/8/R3K2R b Kq - 0 20", Fen.format(game));
+    }
+
+    @Test
+    @DisplayName("Optional Clocks")
+    public void optionalClocks() {
+        ChessGame game = Fen.parseGame("8/8/8/4k3/8/8/8/4K3 b - -");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+    }
+
+    @Test
+    @DisplayName("Invalid FEN")
+    public void invalidFen() {
+        String[] invalid = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - zero 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        };
+        for (String fen : invalid) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parseGame(fen),
+                    "Should reject invalid FEN: " + fen);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package passoff.chess.game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.Collection;
+
+public class DrawRuleTests {
+
+    private static final ChessMove WHITE_OUT = new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null);
+    private static final ChessMove BLACK_OUT = new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null);
+    private static final ChessMove WHITE_BACK = new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null);
+    private static final ChessMove BLACK_BACK = new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null);
+
+    @Test
+    @DisplayName("Threefold Repetition Ends Game")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(1, game.getRepetitionCount());
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertFalse(game.isDraw(), "Game should not be drawn before the third repetition");
+            game.makeMove(WHITE_OUT);
+            game.makeMove(BLACK_OUT);
+            game.makeMove(WHITE_BACK);
+            game.makeMove(BLACK_BACK);
+        }
+
+        Assertions.assertEquals(3, game.getRepetitionCount(), "Starting position should have occurred three times");
+        Assertions.assertTrue(game.isThreefoldRepetition());
+        Assertions.assertTrue(game.isDraw());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(WHITE_OUT),
+                "No moves should be allowed after a draw");
+    }
+
+    @Test
+    @DisplayName("Undo Forgets Repetition")
+    public void undoForgetsRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(WHITE_OUT);
+            game.makeMove(BLACK_OUT);
+            game.makeMove(WHITE_BACK);
+            game.makeMove(BLACK_BACK);
+        }
+        game.undoMove();
+
+        Assertions.assertFalse(game.isDraw(), "Undoing the repeating move should undo the draw");
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        Assertions.assertEquals(7, game.getHalfmoveClock());
+        game.makeMove(BLACK_BACK);
+        Assertions.assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Repetition Survives Save And Load")
+    public void repetitionSurvivesSaveAndLoad() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+        game.makeMove(BLACK_BACK);
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+
+        ChessGame fromJson = ChessJson.gson().fromJson(ChessJson.gson().toJson(game), ChessGame.class);
+        ChessGame fromBytes = BinaryCodec.decodeGame(BinaryCodec.encode(game));
+        for (ChessGame loaded : new ChessGame[]{fromJson, fromBytes}) {
+            Assertions.assertEquals(game.getRepetitionCount(), loaded.getRepetitionCount());
+            Assertions.assertFalse(loaded.isDraw());
+            loaded.makeMove(BLACK_BACK);
+            Assertions.assertEquals(3, loaded.getRepetitionCount(),
+                    "Positions from before the save should count towards the repetition");
+            Assertions.assertTrue(loaded.isDraw());
+        }
+    }
+
+    @Test
+    @DisplayName("Castling Rights Distinguish Positions")
+    public void castlingRightsDistinguishPositions() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | |R|
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        ChessMove rookOut = new ChessMove(new ChessPosition(1, 8), new ChessPosition(2, 8), null);
+        ChessMove rookBack = new ChessMove(new ChessPosition(2, 8), new ChessPosition(1, 8), null);
+        ChessMove kingOut = new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 4), null);
+        ChessMove kingBack = new ChessMove(new ChessPosition(8, 4), new ChessPosition(8, 5), null);
+
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(rookOut);
+            game.makeMove(kingOut);
+            game.makeMove(rookBack);
+            game.makeMove(kingBack);
+        }
+
+        Assertions.assertEquals(2, game.getRepetitionCount(),
+                "The first position could still castle, so it should not count as a repetition");
+        Assertions.assertFalse(game.isDraw());
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule Ends Game")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | | | | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |p| | | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        for (int ply = 0; ply < 100; ply++) {
+            Assertions.assertFalse(game.isDraw(), "Game should not be drawn after " + ply + " moves");
+            game.makeMove(nextQuietMove(game));
+        }
+
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertTrue(game.isFiftyMoveRule());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(nextQuietMove(game)),
+                "No moves should be allowed after a draw");
+    }
+
+    @Test
+    @DisplayName("Pawn Move Resets Halfmove Clock")
+    public void pawnMoveResetsClock() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        Assertions.assertEquals(2, game.getHalfmoveClock());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals(0, game.getHalfmoveClock(), "A pawn move should reset the halfmove clock");
+    }
+
+    @Test
+    @DisplayName("Insufficient Material")
+    public void insufficientMaterial() {
+        Assertions.assertTrue(gameWith("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """).isInsufficientMaterial(), "King against king cannot be won");
+        Assertions.assertTrue(gameWith("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |N| | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """).isInsufficientMaterial(), "King and knight against king cannot be won");
+        Assertions.assertTrue(gameWith("""
+                | | | | |k| | | |
+                | | |b| | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """).isInsufficientMaterial(), "King and bishop against king cannot be won");
+        Assertions.assertTrue(gameWith("""
+                | | | | |k| | | |
+                | | |b| | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |B| | | |K| | | |
+                """).isInsufficientMaterial(), "Bishops on the same color cannot win");
+
+        Assertions.assertFalse(gameWith("""
+                | | | | |k| | | |
+                | | | |b| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |B| | | |K| | | |
+                """).isInsufficientMaterial(), "Bishops on different colors can still mate");
+        Assertions.assertFalse(gameWith("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |N| | | | | |
+                | | | | | | | | |
+                | |N| | |K| | | |
+                """).isInsufficientMaterial(), "Two knights are not treated as a dead position");
+        Assertions.assertFalse(gameWith("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |P| | | |
+                | | | | |K| | | |
+                """).isInsufficientMaterial(), "A pawn can still promote");
+    }
+
+    @Test
+    @DisplayName("Capture Down To Bare Kings Ends Game")
+    public void captureToBareKings() throws InvalidMoveException {
+        ChessGame game = gameWith("""
+                | | | | |k| | | |
+                | | | | |q| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(2, 5), null));
+        Assertions.assertFalse(game.isDraw());
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+
+        Assertions.assertTrue(game.isInsufficientMaterial());
+        Assertions.assertTrue(game.isDraw());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 4), null)),
+                "No moves should be allowed after a draw");
+    }
+
+    private static ChessGame gameWith(String boardText) {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard(boardText));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        return game;
+    }
+
+    /**
+     * Picks the king move that captures nothing and leads to the least repeated position
+     */
+    private static ChessMove nextQuietMove(ChessGame game) throws InvalidMoveException {
+        ChessMove best = null;
+        int bestCount = Integer.MAX_VALUE;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece == null || piece.getTeamColor() != game.getTeamTurn()
+                        || piece.getPieceType() != ChessPiece.PieceType.KING) {
+                    continue;
+                }
+                Collection<ChessMove> moves = game.validMoves(position);
+                for (ChessMove move : moves) {
+                    if (game.getBoard().getPiece(move.getEndPosition()) != null) {
+                        continue;
+                    }
+                    ChessGame next = new ChessGame(game);
+                    next.makeMove(move);
+                    if (next.getRepetitionCount() < bestCount) {
+                        best = move;
+                        bestCount = next.getRepetitionCount();
+                    }
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,186 @@
+package passoff.chess.game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class EngineTests {
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() throws InvalidMoveException {
+        ChessGame game = Fen.parseGame("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Engine().search(game, SearchLimits.depth(4));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                result.getBestMove());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(Engine.MATE - 1, result.getScore());
+
+        game.makeMove(result.getBestMove());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Wins Hanging Queen")
+    public void winsHangingQueen() {
+        ChessGame game = Fen.parseGame("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Engine().search(game, SearchLimits.depth(3));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null),
+                result.getBestMove());
+        Assertions.assertTrue(result.getScore() > 300);
+    }
+
+    @Test
+    @DisplayName("Search Leaves Game Unchanged")
+    public void gameUnchanged() {
+        ChessGame game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String before = Fen.format(game);
+        SearchResult result = new Engine().search(game, SearchLimits.depth(3));
+
+        Assertions.assertEquals(before, Fen.format(game));
+        Assertions.assertTrue(game.validMoves().contains(result.getBestMove()));
+    }
+
+    @Test
+    @DisplayName("Respects Node Budget")
+    public void nodeBudget() {
+        ChessGame game = new ChessGame();
+        SearchResult result = new Engine().search(game, SearchLimits.nodes(500));
+
+        Assertions.assertTrue(result.getNodes() <= 500, "Searched " + result.getNodes() + " nodes");
+        Assertions.assertNotNull(result.getBestMove(), "A stopped search should still return a move");
+        Assertions.assertTrue(game.validMoves().contains(result.getBestMove()));
+    }
+
+    @Test
+    @DisplayName("Respects Time Budget")
+    public void timeBudget() {
+        ChessGame game = new ChessGame();
+        long start = System.nanoTime();
+        SearchResult result = new Engine().search(game, SearchLimits.millis(100));
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+
+        Assertions.assertTrue(millis < 1000, "Search took " + millis + " ms");
+        Assertions.assertTrue(game.validMoves().contains(result.getBestMove()));
+    }
+
+    @Test
+    @DisplayName("No Move When Game Is Over")
+    public void noMoves() {
+        ChessGame mated = Fen.parseGame("R5k1/5ppp/8/8/8/8/8/6K1 b - - 1 1");
+        SearchResult result = new Engine().search(mated, SearchLimits.depth(3));
+        Assertions.assertNull(result.getBestMove());
+        Assertions.assertEquals(-Engine.MATE, result.getScore());
+
+        ChessGame stalemate = Fen.parseGame("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        result = new Engine().search(stalemate, SearchLimits.depth(3));
+        Assertions.assertNull(result.getBestMove());
+        Assertions.assertEquals(0, result.getScore());
+    }
+
+    @Test
+    @DisplayName("Evaluation Follows Moves And Undo")
+    public void incrementalEvaluation() throws InvalidMoveException {
+        Assertions.assertEquals(0, Engine.evaluate(new ChessGame()), "The starting position is balanced");
+
+        for (String fen : new String[]{
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"}) {
+            ChessGame game = Fen.parseGame(fen);
+            int start = Engine.evaluate(game);
+            Random random = new Random(fen.hashCode());
+            int played = 0;
+            while (played < 60 && !game.isGameOver()) {
+                List<ChessMove> moves = new ArrayList<>(game.validMoves());
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                played++;
+                Assertions.assertEquals(Engine.evaluate(Fen.parseGame(Fen.format(game))), Engine.evaluate(game),
+                        "Running sums should match a freshly set up board after " + Fen.format(game));
+            }
+            for (int i = 0; i < played; i++) {
+                game.undoMove();
+            }
+            Assertions.assertEquals(start, Engine.evaluate(game));
+        }
+    }
+
+    @Test
+    @DisplayName("Pawn Key Follows Only Pawns")
+    public void pawnKey() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        long start = game.getBoard().getPawnKey();
+        Assertions.assertNotEquals(0L, start);
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        Assertions.assertEquals(start, game.getBoard().getPawnKey(), "A knight move should not change the pawn key");
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertNotEquals(start, game.getBoard().getPawnKey());
+        game.undoMove();
+        Assertions.assertEquals(start, game.getBoard().getPawnKey());
+
+        Assertions.assertEquals(Fen.parseBoard("4k3/pp6/8/8/8/8/6PP/4K3").getPawnKey(),
+                Fen.parseBoard("r3k3/pp6/8/2n5/8/8/6PP/2B1K3").getPawnKey());
+        Assertions.assertEquals(0L, Fen.parseBoard("4k3/8/8/8/8/8/8/4K2R").getPawnKey());
+    }
+
+    @Test
+    @DisplayName("Pawn Cache Is Reused")
+    public void pawnCache() {
+        Engine engine = new Engine();
+        engine.search(Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+                SearchLimits.depth(4));
+        PawnCache cache = engine.getPawnCache();
+        Assertions.assertTrue(cache.getProbes() > 0);
+        Assertions.assertTrue(cache.getHitRate() > 0.5, "Hit rate was " + cache.getHitRate());
+
+        cache.resetStats();
+        Assertions.assertEquals(0, cache.getProbes());
+        Assertions.assertEquals(0.0, cache.getHitRate());
+        Assertions.assertEquals(1 << 3, new PawnCache(10).getCapacity());
+
+        Engine pawnless = new Engine();
+        pawnless.search(Fen.parseGame("4k3/8/8/8/8/8/8/R3K3 w - - 0 1"), SearchLimits.depth(1));
+        cache = pawnless.getPawnCache();
+        Assertions.assertTrue(cache.getProbes() > 1);
+        Assertions.assertEquals(cache.getProbes() - 1, cache.getHits(),
+                "Only the first lookup of a board without pawns should miss");
+    }
+
+    @Test
+    @DisplayName("Evaluation Is Color Symmetric")
+    public void colorSymmetry() {
+        for (String fen : new String[]{
+                "4k3/pp3p2/8/2P5/8/1P6/1P4PP/4K3 w - - 0 1",
+                "r1bqk2r/pp3ppp/2n1p3/3p4/1b1P4/2N1PN2/PP3PPP/R2QKB1R b KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"}) {
+            Assertions.assertEquals(Engine.evaluate(Fen.parseGame(fen)), Engine.evaluate(Fen.parseGame(mirror(fen))),
+                    "Swapping the colors of " + fen + " should not change the score for the team to move");
+        }
+    }
+
+    private static String mirror(String fen) {
+        String[] fields = fen.split(" ");
+        String[] rows = fields[0].split("/");
+        StringBuilder placement = new StringBuilder();
+        for (int i = rows.length - 1; i >= 0; i--) {
+            placement.append(swapCase(rows[i])).append(i > 0 ? "/" : "");
+        }
+        String castling = fields[2].equals("-") ? "-" : swapCase(fields[2]);
+        return placement + (fields[1].equals("w") ? " b " : " w ") + castling + " - 0 1";
+    }
+
+    private static String swapCase(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            sb.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package passoff.chess.game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class GameSnapshotTests {
+
+    @Test
+    @DisplayName("Snapshot Restores Game")
+    public void snapshotRestoresGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        ChessGame restored = game.snapshot().toGame();
+
+        Assertions.assertEquals(game, restored, "Restored game should equal the original");
+        Assertions.assertEquals(game.getZobristKey(), restored.getZobristKey(),
+                "Restored game should have the same position key");
+        Assertions.assertEquals(game.snapshot(), restored.snapshot(), "Snapshots of equal games should be equal");
+    }
+
+    @Test
+    @DisplayName("Snapshot Keeps Repetitions")
+    public void snapshotKeepsRepetitions() throws InvalidMoveException {
+        ChessMove whiteOut = new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null);
+        ChessMove whiteBack = new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null);
+        ChessMove blackOut = new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null);
+        ChessMove blackBack = new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null);
+        ChessGame game = new ChessGame();
+        for (ChessMove move : new ChessMove[]{whiteOut, blackOut, whiteBack, blackBack, whiteOut, blackOut, whiteBack}) {
+            game.makeMove(move);
+        }
+
+        ChessGame restored = game.snapshot().copy().toGame();
+
+        Assertions.assertEquals(game.getRepetitionCount(), restored.getRepetitionCount());
+        restored.makeMove(blackBack);
+        Assertions.assertTrue(restored.isDraw(),
+                "Positions from before the snapshot should count towards the repetition");
+    }
+
+    @Test
+    @DisplayName("Snapshot Keeps En Passant")
+    public void snapshotKeepsEnPassant() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(6, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+
+        ChessGame restored = game.snapshot().copy().toGame();
+
+        ChessMove enPassant = new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null);
+        Assertions.assertTrue(restored.validMoves(new ChessPosition(5, 5)).contains(enPassant),
+                "En passant should still be possible in the restored game");
+        restored.makeMove(enPassant);
+        Assertions.assertNull(restored.getBoard().getPiece(new ChessPosition(5, 4)),
+                "En passant should capture the pawn in the restored game");
+    }
+
+    @Test
+    @DisplayName("Snapshot Keeps Castling Rights")
+    public void snapshotKeepsCastlingRights() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |r| | | |k| | |r|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | |R|
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        game.makeMove(new ChessMove(new ChessPosition(1, 8), new ChessPosition(2, 8), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 8), new ChessPosition(7, 8), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 8), new ChessPosition(1, 8), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 8), new ChessPosition(8, 8), null));
+
+        ChessGame restored = game.snapshot().toGame();
+
+        Assertions.assertFalse(restored.validMoves(new ChessPosition(1, 5))
+                        .contains(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null)),
+                "Kingside castling should stay lost after the rook moved");
+        Assertions.assertTrue(restored.validMoves(new ChessPosition(1, 5))
+                        .contains(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 3), null)),
+                "Queenside castling should still be possible");
+    }
+}
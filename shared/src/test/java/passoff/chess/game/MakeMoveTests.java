@@ -225,6 +225,17 @@ public class MakeMoveTests {
                 () -> game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(5, 1), null)));
     }
 
+    @Test
+    @DisplayName("Invalid Make Move Off Board")
+    public void invalidMakeMoveOffBoard() {
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(2, 9), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(0, 1), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(1, 9), new ChessPosition(3, 1), null)));
+    }
+
     @Test
     @DisplayName("Invalid Make Move Pawn Diagonal No Capture")
     public void invalidMakeMovePawnDiagonalNoCapture() {
@@ -0,0 +1,62 @@
+package passoff.chess.game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ParallelSearchTests {
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        ChessGame game = Fen.parseGame("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        try (ParallelSearch search = new ParallelSearch(new TranspositionTable(4), 4)) {
+            SearchResult result = search.search(game, SearchLimits.depth(4));
+            Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                    result.getBestMove());
+            Assertions.assertEquals(Engine.MATE - 1, result.getScore());
+        }
+    }
+
+    @Test
+    @DisplayName("Repeated Searches Return Valid Moves")
+    public void repeatedSearches() {
+        ChessGame game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String before = Fen.format(game);
+        try (ParallelSearch search = new ParallelSearch(new TranspositionTable(4), 3)) {
+            Assertions.assertEquals(3, search.getThreads());
+            for (int i = 0; i < 3; i++) {
+                SearchResult result = search.search(game, SearchLimits.depth(4));
+                Assertions.assertTrue(game.validMoves().contains(result.getBestMove()));
+                Assertions.assertEquals(4, result.getDepth());
+            }
+        }
+        Assertions.assertEquals(before, Fen.format(game));
+    }
+
+    @Test
+    @DisplayName("Respects Time Budget")
+    public void timeBudget() {
+        ChessGame game = new ChessGame();
+        try (ParallelSearch search = new ParallelSearch(new TranspositionTable(4), 4)) {
+            long start = System.nanoTime();
+            SearchResult result = search.search(game, SearchLimits.millis(100));
+            long millis = (System.nanoTime() - start) / 1_000_000L;
+
+            Assertions.assertTrue(millis < 1000, "Search took " + millis + " ms");
+            Assertions.assertTrue(game.validMoves().contains(result.getBestMove()));
+        }
+    }
+
+    @Test
+    @DisplayName("Single Thread Needs No Helpers")
+    public void singleThread() {
+        try (ParallelSearch search = new ParallelSearch(new TranspositionTable(1), 1)) {
+            SearchResult result = search.search(new ChessGame(), SearchLimits.depth(3));
+            Assertions.assertNotNull(result.getBestMove());
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ParallelSearch(new TranspositionTable(1), 0));
+    }
+}
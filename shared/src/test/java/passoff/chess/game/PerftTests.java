@@ -0,0 +1,84 @@
+package passoff.chess.game;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.PackedMove;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class PerftTests {
+    /**
+     * Deeper counts are left to Perft.main, which takes minutes rather than seconds
+     */
+    private static final long MAX_TEST_NODES = 200_000;
+
+    @Test
+    @DisplayName("Reference Position Node Counts")
+    public void referencePositions() {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            for (int depth = 1; depth <= position.getMaxDepth(); depth++) {
+                if (position.getExpected(depth) > MAX_TEST_NODES) {
+                    break;
+                }
+                Assertions.assertEquals(position.getExpected(depth), Perft.perft(position.createGame(), depth),
+                        "Wrong node count for " + position.getName() + " at depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Divide Sums To Perft")
+    public void divideMatchesPerft() {
+        ChessGame game = new ChessGame();
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+
+        Assertions.assertEquals(20, divide.size(), "Divide should list every root move");
+        long total = divide.values().stream().mapToLong(Long::longValue).sum();
+        Assertions.assertEquals(8902, total, "Divide counts should add up to the perft total");
+        Assertions.assertEquals(new ChessGame(), game, "Perft should not change the game it starts from");
+    }
+
+    @Test
+    @DisplayName("Undo Restores Every Position")
+    public void undoRestoresPosition() throws InvalidMoveException {
+        for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+            checkUndo(position.createGame(), 2);
+        }
+    }
+
+    private static void checkUndo(ChessGame game, int depth) throws InvalidMoveException {
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.validMoves(moves);
+        for (int i = 0; i < count; i++) {
+            String fen = Fen.format(game);
+            long key = game.getZobristKey();
+            int[] movesBefore = sortedMoves(game);
+            ChessMove move = PackedMove.toChessMove(moves[i]);
+            game.makeMove(move);
+            if (depth > 1) {
+                checkUndo(game, depth - 1);
+            }
+            game.undoMove();
+
+            Assertions.assertEquals(fen, Fen.format(game),
+                    "Undoing " + move + " should restore the board, castling rights, en passant square and clocks");
+            Assertions.assertEquals(key, game.getZobristKey(), "Undoing " + move + " should restore the position key");
+            Assertions.assertArrayEquals(movesBefore, sortedMoves(game),
+                    "Undoing " + move + " should restore the valid moves");
+        }
+    }
+
+    private static int[] sortedMoves(ChessGame game) {
+        int[] buffer = new int[PackedMove.MAX_MOVES];
+        int[] moves = Arrays.copyOf(buffer, game.validMoves(buffer));
+        Arrays.sort(moves);
+        return moves;
+    }
+}
@@ -0,0 +1,98 @@
+package passoff.chess.game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+
+public class StatusCacheTests {
+
+    @Test
+    @DisplayName("All Valid Moves Match Per Piece Moves")
+    public void allValidMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        Collection<ChessMove> expected = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == ChessGame.TeamColor.BLACK) {
+                    expected.addAll(game.validMoves(position));
+                }
+            }
+        }
+
+        Collection<ChessMove> moves = game.validMoves();
+        Assertions.assertEquals(20, moves.size());
+        Assertions.assertEquals(new HashSet<>(expected), new HashSet<>(moves));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> moves.clear(),
+                "The shared move collection should not be modifiable");
+    }
+
+    @Test
+    @DisplayName("Status Follows Moves")
+    public void statusFollowsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(game.isGameOver());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE), "Repeated queries should agree");
+        Assertions.assertTrue(game.validMoves().isEmpty());
+        Assertions.assertTrue(game.isGameOver());
+
+        game.undoMove();
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.WHITE), "Undo should clear the checkmate");
+    }
+
+    @Test
+    @DisplayName("Status Follows Board Changes")
+    public void statusFollowsBoardChanges() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | | | | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(3, game.validMoves().size());
+
+        game.getBoard().addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK),
+                "Adding a piece to the board should be seen by the next query");
+        Assertions.assertEquals(2, game.validMoves().size());
+
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | | | | |k|
+                | | | | | | |Q| |
+                | | | | | | |K| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """));
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+}
@@ -0,0 +1,85 @@
+package passoff.chess.game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTests {
+
+    private static final long KEY = 0x9E3779B97F4A7C15L;
+
+    @Test
+    @DisplayName("Stored Entry Reads Back")
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.encode(12, 28, null, PackedMove.DOUBLE_PUSH);
+        table.store(KEY, 7, TranspositionTable.LOWER_BOUND, -1234, move);
+
+        long entry = table.probe(KEY);
+        Assertions.assertNotEquals(TranspositionTable.MISS, entry);
+        Assertions.assertEquals(move, TranspositionTable.move(entry));
+        Assertions.assertEquals(7, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+        Assertions.assertEquals(-1234, TranspositionTable.score(entry));
+
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(KEY + 1));
+        Assertions.assertEquals(2, table.getProbes());
+        Assertions.assertEquals(1, table.getHits());
+        Assertions.assertEquals(0.5, table.getHitRate());
+    }
+
+    @Test
+    @DisplayName("Size Is A Power Of Two")
+    public void capacity() {
+        TranspositionTable table = new TranspositionTable(3);
+        Assertions.assertEquals(1 << 17, table.getCapacity(), "3 MB should round down to 2 MB of 16-byte entries");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+
+    @Test
+    @DisplayName("Depth Preferred Keeps Deeper Entry")
+    public void depthPreferred() {
+        TranspositionTable table = new TranspositionTable(1, TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED);
+        long other = KEY + table.getCapacity();
+        table.store(KEY, 8, TranspositionTable.LOWER_BOUND, 10, 0);
+        table.store(other, 3, TranspositionTable.UPPER_BOUND, 20, 0);
+        Assertions.assertNotEquals(TranspositionTable.MISS, table.probe(KEY));
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(other));
+
+        table.newSearch();
+        table.store(other, 3, TranspositionTable.UPPER_BOUND, 20, 0);
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(KEY), "Entries of old searches should give way");
+        Assertions.assertEquals(20, TranspositionTable.score(table.probe(other)));
+    }
+
+    @Test
+    @DisplayName("Always Replace Keeps Newest Entry")
+    public void alwaysReplace() {
+        TranspositionTable table = new TranspositionTable(1, TranspositionTable.ReplacementPolicy.ALWAYS);
+        long other = KEY + table.getCapacity();
+        table.store(KEY, 8, TranspositionTable.LOWER_BOUND, 10, 0);
+        table.store(other, 3, TranspositionTable.UPPER_BOUND, 20, 0);
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(KEY));
+        Assertions.assertEquals(3, TranspositionTable.depth(table.probe(other)));
+
+        table.clear();
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(other));
+        Assertions.assertEquals(1, table.getProbes(), "Clearing should reset the statistics");
+    }
+
+    @Test
+    @DisplayName("Engines Share A Table")
+    public void sharedTable() {
+        TranspositionTable table = new TranspositionTable(4);
+        ChessGame game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        SearchResult first = new Engine(table).search(game, SearchLimits.depth(4));
+        Assertions.assertTrue(table.getHits() > 0);
+
+        table.resetStats();
+        SearchResult second = new Engine(table).search(game, SearchLimits.depth(4));
+        Assertions.assertTrue(second.getNodes() < first.getNodes(),
+                "A second search should reuse the first one's results");
+        Assertions.assertTrue(game.validMoves().contains(second.getBestMove()));
+    }
+}